@@ -0,0 +1,138 @@
+package com.toll.bench;
+
+import com.toll.common.codec.BinaryRedisSerializer;
+import com.toll.common.codec.TagInfoRedisSerializer;
+import com.toll.common.model.TagInfo;
+import com.toll.common.store.TagAccountStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Charging a few hot tags from many threads at once, against a live Redis ({@code -p host=... -p port=...};
+ * the {@code BENCH:} keys it writes are deleted afterwards).
+ *
+ * {@code CHECK_THEN_DECREMENT} is how verify used to approve a charge: read the balance, compare it to
+ * the toll, deduct later. {@code RESERVE} places a hold with the reservation script and commits it.
+ * Every tag starts an iteration with {@code balance} and each call tries to charge {@code toll}, so at
+ * most balance / toll charges per tag can be honest. After each iteration the approved charges and the
+ * lowest final balance are printed: check-then-decrement over-approves and overdraws under contention,
+ * reservation never does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class BalanceReservationBenchmark {
+
+    private static final String PREFIX = "BENCH:";
+
+    @Param({"CHECK_THEN_DECREMENT", "RESERVE"})
+    private String mode;
+
+    @Param({"4"})
+    private int hotTags;
+
+    @Param({"1000.0"})
+    private double balance;
+
+    @Param({"10.0"})
+    private double toll;
+
+    @Param({"localhost"})
+    private String host;
+
+    @Param({"6379"})
+    private int port;
+
+    private LettuceConnectionFactory connectionFactory;
+    private TagAccountStore store;
+    private String[] tagIds;
+    private final AtomicLong approved = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void connect() {
+        connectionFactory = new LettuceConnectionFactory(host, port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        RedisTemplate<String, TagInfo> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new TagInfoRedisSerializer(BinaryRedisSerializer.Format.BINARY));
+        template.afterPropertiesSet();
+        store = new TagAccountStore(template);
+
+        tagIds = new String[hotTags];
+        for (int i = 0; i < hotTags; i++) {
+            tagIds[i] = PREFIX + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fund() {
+        for (String tagId : tagIds) {
+            delete(tagId); // put() would carry over the holds of the previous iteration
+            store.put(TagInfo.builder().tagId(tagId).vehicleType("LIGHT").balance(balance).build(),
+                    Duration.ofMinutes(10));
+        }
+        approved.set(0);
+    }
+
+    @Benchmark
+    public boolean charge() {
+        String tagId = tagIds[ThreadLocalRandom.current().nextInt(tagIds.length)];
+        boolean ok;
+        if ("RESERVE".equals(mode)) {
+            UUID eventId = UUID.randomUUID();
+            ok = Boolean.TRUE.equals(store.reserveAll(List.of(new TagAccountStore.Hold(tagId, eventId, toll))).get(0));
+            if (ok) {
+                store.commitHold(tagId, eventId);
+                store.forgetCharge(tagId, eventId); // as verify does once the settle commits
+            }
+        } else {
+            TagInfo tag = store.get(tagId);
+            ok = tag.getBalance() >= toll;
+            if (ok) store.adjustBalance(tagId, -toll);
+        }
+        if (ok) approved.incrementAndGet();
+        return ok;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long honest = (long) Math.floor(balance / toll) * tagIds.length;
+        double lowest = Double.MAX_VALUE;
+        for (String tagId : tagIds) {
+            lowest = Math.min(lowest, store.get(tagId).getBalance());
+        }
+        System.out.printf("%n%s: approved %d of at most %d charges, lowest balance %.2f%n",
+                mode, approved.get(), honest, lowest);
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() {
+        for (String tagId : tagIds) {
+            delete(tagId);
+        }
+        connectionFactory.destroy();
+    }
+
+    private void delete(String tagId) {
+        try (RedisConnection conn = connectionFactory.getConnection()) {
+            conn.keyCommands().del(TagAccountStore.key(tagId));
+        }
+    }
+}
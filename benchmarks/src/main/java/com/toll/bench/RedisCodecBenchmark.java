@@ -0,0 +1,94 @@
+package com.toll.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.toll.common.codec.BinaryRedisSerializer;
+import com.toll.common.codec.BlacklistEntryRedisSerializer;
+import com.toll.common.codec.TagInfoRedisSerializer;
+import com.toll.common.model.BlacklistEntry;
+import com.toll.common.model.CurrentTrip;
+import com.toll.common.model.TagInfo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis value serializers: the Jackson JSON serializer the services used before ({@code JSON}) against
+ * the binary ones in common-model ({@code BINARY}). Encoded sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private String codec;
+
+    private RedisSerializer<TagInfo> tagSerializer;
+    private RedisSerializer<BlacklistEntry> blacklistSerializer;
+    private TagInfo tag;
+    private BlacklistEntry entry;
+    private byte[] tagBytes;
+    private byte[] entryBytes;
+
+    @Setup
+    public void setup() {
+        if ("JSON".equals(codec)) {
+            ObjectMapper mapper = new ObjectMapper();
+            mapper.registerModule(new JavaTimeModule());
+            tagSerializer = new Jackson2JsonRedisSerializer<>(mapper, TagInfo.class);
+            blacklistSerializer = new Jackson2JsonRedisSerializer<>(mapper, BlacklistEntry.class);
+        } else {
+            tagSerializer = new TagInfoRedisSerializer(BinaryRedisSerializer.Format.BINARY);
+            blacklistSerializer = new BlacklistEntryRedisSerializer(BinaryRedisSerializer.Format.BINARY);
+        }
+
+        tag = TagInfo.builder()
+                .tagId("TAG100042")
+                .vehicleNumber("KA01AB1234")
+                .vehicleType("LIGHT")
+                .balance(470.0)
+                .currentTrip(CurrentTrip.builder()
+                        .plazaId("PLZ1")
+                        .laneId("L1")
+                        .timestamp(Instant.now().toString())
+                        .status("PENDING")
+                        .build())
+                .build();
+        entry = BlacklistEntry.builder()
+                .tagId("TAG100042")
+                .reason("PAYMENT_FAILED")
+                .timestamp(Instant.now())
+                .build();
+
+        tagBytes = tagSerializer.serialize(tag);
+        entryBytes = blacklistSerializer.serialize(entry);
+        System.out.printf("%n%s: TagInfo %d bytes, BlacklistEntry %d bytes%n", codec, tagBytes.length, entryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeTag() {
+        return tagSerializer.serialize(tag);
+    }
+
+    @Benchmark
+    public TagInfo deserializeTag() {
+        return tagSerializer.deserialize(tagBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeBlacklistEntry() {
+        return blacklistSerializer.serialize(entry);
+    }
+
+    @Benchmark
+    public BlacklistEntry deserializeBlacklistEntry() {
+        return blacklistSerializer.deserialize(entryBytes);
+    }
+}
@@ -0,0 +1,141 @@
+package com.toll.common.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base for the compact binary Redis value encodings.
+ *
+ * <pre>
+ * header : magic(0xB1) schema(1) version(1), then the schema's fixed-layout fields and the rest
+ * string: varint 0 = null, 1 = inline length-prefixed UTF-8, n >= 2 = dictionary word n - 2
+ * </pre>
+ * Values are written in the configured {@link Format}, but either format is always read: anything not
+ * starting with the magic byte is taken to be the JSON written by the previous serializer. Roll out
+ * with {@code JSON} writes until every reader runs this serializer, then switch writes to {@code BINARY}.
+ */
+public abstract class BinaryRedisSerializer<T> implements RedisSerializer<T> {
+
+    public static final int MAGIC = 0xB1;
+
+    /** Encoding used for writes. */
+    public enum Format {
+        JSON, BINARY
+    }
+
+    // Version 1 word list. Append-only: a word's code is part of the stored format.
+    private static final List<String> WORDS = List.of(
+            "LIGHT", "HEAVY", "PENDING", "SUCCESS", "FAILED", "MANUAL_REQUIRED", "OFFLINE_OPEN", "OFFLINE_DENY",
+            "PAYMENT_FAILED", "MANUAL_OVERRIDE", "BLOCKED");
+    private static final Map<String, Integer> WORD_CODES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < WORDS.size(); i++) {
+            WORD_CODES.put(WORDS.get(i), i + 2);
+        }
+    }
+
+    private final Class<T> type;
+    private final int schema;
+    private final int version;
+    private final Format writeFormat;
+    private final ObjectMapper json;
+
+    protected BinaryRedisSerializer(Class<T> type, int schema, int version, Format writeFormat) {
+        this.type = type;
+        this.schema = schema;
+        this.version = version;
+        this.writeFormat = writeFormat;
+        this.json = new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+
+    protected abstract void write(T value, ByteWriter out);
+
+    protected abstract T read(ByteReader in, int version);
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) return null;
+        if (writeFormat == Format.JSON) {
+            try {
+                return json.writeValueAsBytes(value);
+            } catch (IOException e) {
+                throw new SerializationException("Could not write " + type.getSimpleName() + " as JSON", e);
+            }
+        }
+        ByteWriter out = new ByteWriter(96);
+        out.writeByte(MAGIC).writeByte(schema).writeByte(version);
+        write(value, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) return null;
+        if ((bytes[0] & 0xFF) != MAGIC) {
+            try {
+                return json.readValue(bytes, type);
+            } catch (IOException e) {
+                throw new SerializationException("Could not read " + type.getSimpleName() + " from JSON", e);
+            }
+        }
+        try {
+            ByteReader in = new ByteReader(bytes);
+            in.skip(1);
+            int storedSchema = in.readByte();
+            int storedVersion = in.readByte();
+            if (storedSchema != schema || storedVersion < 1 || storedVersion > version) {
+                throw new SerializationException("Unsupported " + type.getSimpleName() + " encoding: schema "
+                        + storedSchema + " version " + storedVersion);
+            }
+            return read(in, storedVersion);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Corrupt " + type.getSimpleName() + " value", e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return type;
+    }
+
+    protected static void writeWord(ByteWriter out, String s) {
+        if (s == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        Integer code = WORD_CODES.get(s);
+        if (code != null) {
+            out.writeVarInt(code);
+        } else {
+            out.writeVarInt(1);
+            out.writeString(s);
+        }
+    }
+
+    protected static String readWord(ByteReader in) {
+        int code = in.readVarInt();
+        if (code == 0) return null;
+        if (code == 1) return in.readString();
+        if (code - 2 >= WORDS.size()) throw new IllegalArgumentException("Unknown word code " + code);
+        return WORDS.get(code - 2);
+    }
+
+    /** Epoch millis as a fixed 8 bytes plus the sub-millisecond nanos, so nothing is lost. */
+    protected static void writeEpochMillis(ByteWriter out, Instant instant) {
+        out.writeLong(instant.toEpochMilli());
+        out.writeVarInt(instant.getNano() % 1_000_000);
+    }
+
+    protected static Instant readEpochMillis(ByteReader in) {
+        return Instant.ofEpochMilli(in.readLong()).plusNanos(in.readVarInt());
+    }
+}
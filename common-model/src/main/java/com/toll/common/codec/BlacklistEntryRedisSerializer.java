@@ -0,0 +1,45 @@
+package com.toll.common.codec;
+
+import com.toll.common.model.BlacklistEntry;
+
+/**
+ * Binary Redis encoding of {@link BlacklistEntry} (schema 2, version 1).
+ *
+ * <pre>
+ * offset 3 : flags (bit 0 timestamp)
+ * then     : [epoch millis (8 bytes) + sub-millisecond nanos] if bit 0, tagId, reason
+ * </pre>
+ */
+public class BlacklistEntryRedisSerializer extends BinaryRedisSerializer<BlacklistEntry> {
+
+    public static final int SCHEMA = 2;
+    public static final int VERSION = 1;
+
+    private static final int HAS_TIMESTAMP = 1;
+
+    public BlacklistEntryRedisSerializer(Format writeFormat) {
+        super(BlacklistEntry.class, SCHEMA, VERSION, writeFormat);
+    }
+
+    @Override
+    protected void write(BlacklistEntry entry, ByteWriter out) {
+        out.writeByte(entry.getTimestamp() != null ? HAS_TIMESTAMP : 0);
+        if (entry.getTimestamp() != null) {
+            writeEpochMillis(out, entry.getTimestamp());
+        }
+        writeWord(out, entry.getTagId());
+        writeWord(out, entry.getReason());
+    }
+
+    @Override
+    protected BlacklistEntry read(ByteReader in, int version) {
+        int flags = in.readByte();
+        BlacklistEntry entry = new BlacklistEntry();
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            entry.setTimestamp(readEpochMillis(in));
+        }
+        entry.setTagId(readWord(in));
+        entry.setReason(readWord(in));
+        return entry;
+    }
+}
@@ -0,0 +1,106 @@
+package com.toll.common.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader counterpart of {@link ByteWriter}. Throws {@link IllegalArgumentException}
+ * on truncated or malformed input rather than returning garbage.
+ */
+public final class ByteReader {
+
+    private final byte[] buf;
+    private int pos;
+    private final int limit;
+
+    public ByteReader(byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+
+    public ByteReader(byte[] buf, int off, int len) {
+        this.buf = buf;
+        this.pos = off;
+        this.limit = off + len;
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    public void position(int newPos) {
+        if (newPos < 0 || newPos > limit) {
+            throw new IllegalArgumentException("Position " + newPos + " outside buffer");
+        }
+        pos = newPos;
+    }
+
+    public int remaining() {
+        return limit - pos;
+    }
+
+    public int readByte() {
+        require(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    public int readVarInt() {
+        long v = readVarLong();
+        if (v > 0xFFFFFFFFL) throw new IllegalArgumentException("Varint overflows int");
+        return (int) v;
+    }
+
+    public long readZigZag() {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public long readLong() {
+        require(8);
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v |= (long) (buf[pos++] & 0xFF) << (i * 8);
+        }
+        return v;
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public int readInt() {
+        require(4);
+        int v = 0;
+        for (int i = 0; i < 4; i++) {
+            v |= (buf[pos++] & 0xFF) << (i * 8);
+        }
+        return v;
+    }
+
+    public String readString() {
+        int len = readVarInt();
+        require(len);
+        String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return s;
+    }
+
+    public void skip(int n) {
+        require(n);
+        pos += n;
+    }
+
+    private void require(int n) {
+        if (n < 0 || pos + n > limit) {
+            throw new IllegalArgumentException("Truncated input: need " + n + " byte(s), have " + (limit - pos));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.toll.common.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable little helper for writing the compact binary encodings used between services:
+ * unsigned/zig-zag varints, length-prefixed UTF-8 strings and fixed-width doubles.
+ */
+public final class ByteWriter {
+
+    private byte[] buf;
+    private int size;
+
+    public ByteWriter() {
+        this(256);
+    }
+
+    public ByteWriter(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    /** Backing array; only the first {@link #size()} bytes are valid. */
+    public byte[] buffer() {
+        return buf;
+    }
+
+    public ByteWriter writeByte(int b) {
+        ensure(1);
+        buf[size++] = (byte) b;
+        return this;
+    }
+
+    public ByteWriter writeBytes(byte[] src, int off, int len) {
+        ensure(len);
+        System.arraycopy(src, off, buf, size, len);
+        size += len;
+        return this;
+    }
+
+    /** Unsigned LEB128 varint. */
+    public ByteWriter writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[size++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[size++] = (byte) v;
+        return this;
+    }
+
+    public ByteWriter writeVarInt(int v) {
+        return writeVarLong(v & 0xFFFFFFFFL);
+    }
+
+    /** Signed varint using zig-zag encoding so small negative numbers stay short. */
+    public ByteWriter writeZigZag(long v) {
+        return writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    public ByteWriter writeLong(long v) {
+        ensure(8);
+        for (int i = 0; i < 8; i++) {
+            buf[size++] = (byte) (v >>> (i * 8));
+        }
+        return this;
+    }
+
+    public ByteWriter writeDouble(double v) {
+        return writeLong(Double.doubleToRawLongBits(v));
+    }
+
+    /** Varint byte length followed by UTF-8 bytes. */
+    public ByteWriter writeString(String s) {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(utf8.length);
+        return writeBytes(utf8, 0, utf8.length);
+    }
+
+    /** Overwrites a previously reserved fixed-width int (little endian). */
+    public void putInt(int at, int v) {
+        for (int i = 0; i < 4; i++) {
+            buf[at + i] = (byte) (v >>> (i * 8));
+        }
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.toll.common.codec;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Field encodings shared by the binary codecs.
+ *
+ * Money and timestamps use a one-bit tag in the leading varint: the compact form when the value
+ * round-trips exactly (whole minor units, canonical ISO-8601 instant), otherwise the raw value,
+ * so decoding always gives back exactly what was encoded.
+ */
+public final class CodecSupport {
+
+    private CodecSupport() {
+    }
+
+    public static void writeMoney(ByteWriter out, double amount) {
+        long minor = Math.round(amount * 100);
+        if (minor / 100.0 == amount && Math.abs(minor) < (1L << 61)) {
+            out.writeZigZag(minor << 1);
+        } else {
+            out.writeZigZag(1);
+            out.writeDouble(amount);
+        }
+    }
+
+    public static double readMoney(ByteReader in) {
+        long h = in.readZigZag();
+        if ((h & 1) == 0) {
+            return (h >> 1) / 100.0;
+        }
+        return in.readDouble();
+    }
+
+    public static void writeTimestamp(ByteWriter out, String iso) {
+        Instant instant = parseCanonical(iso);
+        if (instant != null) {
+            out.writeVarLong(instant.getEpochSecond() << 1);
+            out.writeVarInt(instant.getNano());
+        } else {
+            out.writeVarLong(1);
+            out.writeString(iso);
+        }
+    }
+
+    public static String readTimestamp(ByteReader in) {
+        long h = in.readVarLong();
+        if ((h & 1) == 0) {
+            return Instant.ofEpochSecond(h >>> 1, in.readVarInt()).toString();
+        }
+        return in.readString();
+    }
+
+    public static void writeInstant(ByteWriter out, Instant instant) {
+        out.writeZigZag(instant.getEpochSecond());
+        out.writeVarInt(instant.getNano());
+    }
+
+    public static Instant readInstant(ByteReader in) {
+        return Instant.ofEpochSecond(in.readZigZag(), in.readVarInt());
+    }
+
+    /** A UUID as its 16 raw bytes, most significant half first. */
+    public static void writeUuid(ByteWriter out, UUID id) {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    public static UUID readUuid(ByteReader in) {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    // Only take the compact path for post-epoch instants whose toString() gives back the same text
+    private static Instant parseCanonical(String iso) {
+        try {
+            Instant instant = Instant.parse(iso);
+            return instant.getEpochSecond() >= 0 && instant.toString().equals(iso) ? instant : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
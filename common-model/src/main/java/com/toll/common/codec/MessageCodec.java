@@ -0,0 +1,76 @@
+package com.toll.common.codec;
+
+/**
+ * Base for the binary encodings of Kafka message payloads.
+ *
+ * <pre>
+ * header : magic(0xB2) schema(1) version(1), then varint presence bits and each present field
+ * </pre>
+ * The schema byte names the message type, so a payload can be decoded without type headers. A codec
+ * reads every version up to its own; fields are only ever appended, guarded by the version that added
+ * them. See {@link MessageCodecs} for the registered types.
+ */
+public abstract class MessageCodec<T> {
+
+    public static final int MAGIC = 0xB2;
+
+    /** Encoding used for writes; readers accept both. */
+    public enum Format {
+        JSON, BINARY
+    }
+
+    private final Class<T> type;
+    private final int schema;
+    private final int version;
+
+    protected MessageCodec(Class<T> type, int schema, int version) {
+        this.type = type;
+        this.schema = schema;
+        this.version = version;
+    }
+
+    protected abstract void write(T value, ByteWriter out);
+
+    protected abstract T read(ByteReader in, int version);
+
+    public Class<T> type() {
+        return type;
+    }
+
+    public int schema() {
+        return schema;
+    }
+
+    public byte[] encode(T value) {
+        ByteWriter out = new ByteWriter(96);
+        out.writeByte(MAGIC).writeByte(schema).writeByte(version);
+        write(value, out);
+        return out.toByteArray();
+    }
+
+    /** Decodes a payload whose header names this codec's schema; throws IllegalArgumentException otherwise. */
+    public T decode(byte[] bytes) {
+        ByteReader in = new ByteReader(bytes);
+        if (in.readByte() != MAGIC) throw new IllegalArgumentException("Not a binary message");
+        int storedSchema = in.readByte();
+        int storedVersion = in.readByte();
+        if (storedSchema != schema || storedVersion < 1 || storedVersion > version) {
+            throw new IllegalArgumentException("Unsupported " + type.getSimpleName() + " encoding: schema "
+                    + storedSchema + " version " + storedVersion);
+        }
+        return read(in, storedVersion);
+    }
+
+    /** Schema byte of a binary payload, or -1 if the payload isn't one (e.g. JSON). */
+    public static int schemaOf(byte[] bytes) {
+        return bytes != null && bytes.length >= 3 && (bytes[0] & 0xFF) == MAGIC ? bytes[1] & 0xFF : -1;
+    }
+
+    protected static int bit(int index, Object value) {
+        return value != null ? 1 << index : 0;
+    }
+
+    protected static boolean has(int present, int index) {
+        return (present & (1 << index)) != 0;
+    }
+}
@@ -0,0 +1,208 @@
+package com.toll.common.codec;
+
+import com.toll.common.model.ChargeStatus;
+import com.toll.common.model.CurrentTrip;
+import com.toll.common.model.Decision;
+import com.toll.common.model.OpenGateCommand;
+import com.toll.common.model.TagChargeRequest;
+import com.toll.common.model.TagChargeResponse;
+import com.toll.common.model.TagInfo;
+
+import java.util.List;
+
+/**
+ * Binary codecs of the messages on the toll topics, one schema id per type:
+ * <pre>
+ * 1 TagInfo            (toll.tag.event)
+ * 2 TagChargeRequest   (toll.charge.request)
+ * 3 TagChargeResponse  (toll.charge.response)
+ * 4 OpenGateCommand    (toll.gate.command)
+ * </pre>
+ * Event ids are 16 raw bytes, money and timestamps use the compact forms in {@link CodecSupport},
+ * enums are written by name so reordering constants never changes what a payload means.
+ */
+public final class MessageCodecs {
+
+    public static final MessageCodec<TagInfo> TAG_INFO = new TagInfoCodec();
+    public static final MessageCodec<TagChargeRequest> CHARGE_REQUEST = new ChargeRequestCodec();
+    public static final MessageCodec<TagChargeResponse> CHARGE_RESPONSE = new ChargeResponseCodec();
+    public static final MessageCodec<OpenGateCommand> GATE_COMMAND = new GateCommandCodec();
+
+    private static final List<MessageCodec<?>> ALL = List.of(TAG_INFO, CHARGE_REQUEST, CHARGE_RESPONSE, GATE_COMMAND);
+
+    private MessageCodecs() {
+    }
+
+    /** Codec for a message type, or null if it has none. */
+    @SuppressWarnings("unchecked")
+    public static <T> MessageCodec<T> forType(Class<T> type) {
+        for (MessageCodec<?> codec : ALL) {
+            if (codec.type() == type) return (MessageCodec<T>) codec;
+        }
+        return null;
+    }
+
+    /** Codec for a schema id, or null if it is unknown. */
+    public static MessageCodec<?> forSchema(int schema) {
+        for (MessageCodec<?> codec : ALL) {
+            if (codec.schema() == schema) return codec;
+        }
+        return null;
+    }
+
+    // tagId, vehicleNumber, vehicleType, balance, trip
+    // trip: eventId, plazaId, laneId, timestamp, tollAmount, status, blacklistedReason
+    private static final class TagInfoCodec extends MessageCodec<TagInfo> {
+        TagInfoCodec() {
+            super(TagInfo.class, 1, 1);
+        }
+
+        @Override
+        protected void write(TagInfo tag, ByteWriter out) {
+            CurrentTrip trip = tag.getCurrentTrip();
+            out.writeVarInt(bit(0, tag.getTagId()) | bit(1, tag.getVehicleNumber()) | bit(2, tag.getVehicleType())
+                    | bit(3, tag.getBalance()) | bit(4, trip));
+            if (tag.getTagId() != null) out.writeString(tag.getTagId());
+            if (tag.getVehicleNumber() != null) out.writeString(tag.getVehicleNumber());
+            if (tag.getVehicleType() != null) out.writeString(tag.getVehicleType());
+            if (tag.getBalance() != null) CodecSupport.writeMoney(out, tag.getBalance());
+            if (trip == null) return;
+
+            out.writeVarInt(bit(0, trip.getEventId()) | bit(1, trip.getPlazaId()) | bit(2, trip.getLaneId())
+                    | bit(3, trip.getTimestamp()) | bit(4, trip.getTollAmount()) | bit(5, trip.getStatus())
+                    | bit(6, trip.getBlacklistedReason()));
+            if (trip.getEventId() != null) CodecSupport.writeUuid(out, trip.getEventId());
+            if (trip.getPlazaId() != null) out.writeString(trip.getPlazaId());
+            if (trip.getLaneId() != null) out.writeString(trip.getLaneId());
+            if (trip.getTimestamp() != null) CodecSupport.writeTimestamp(out, trip.getTimestamp());
+            if (trip.getTollAmount() != null) CodecSupport.writeMoney(out, trip.getTollAmount());
+            if (trip.getStatus() != null) out.writeString(trip.getStatus());
+            if (trip.getBlacklistedReason() != null) out.writeString(trip.getBlacklistedReason());
+        }
+
+        @Override
+        protected TagInfo read(ByteReader in, int version) {
+            int present = in.readVarInt();
+            TagInfo tag = new TagInfo();
+            if (has(present, 0)) tag.setTagId(in.readString());
+            if (has(present, 1)) tag.setVehicleNumber(in.readString());
+            if (has(present, 2)) tag.setVehicleType(in.readString());
+            if (has(present, 3)) tag.setBalance(CodecSupport.readMoney(in));
+            if (!has(present, 4)) return tag;
+
+            int tripPresent = in.readVarInt();
+            CurrentTrip trip = new CurrentTrip();
+            if (has(tripPresent, 0)) trip.setEventId(CodecSupport.readUuid(in));
+            if (has(tripPresent, 1)) trip.setPlazaId(in.readString());
+            if (has(tripPresent, 2)) trip.setLaneId(in.readString());
+            if (has(tripPresent, 3)) trip.setTimestamp(CodecSupport.readTimestamp(in));
+            if (has(tripPresent, 4)) trip.setTollAmount(CodecSupport.readMoney(in));
+            if (has(tripPresent, 5)) trip.setStatus(in.readString());
+            if (has(tripPresent, 6)) trip.setBlacklistedReason(in.readString());
+            tag.setCurrentTrip(trip);
+            return tag;
+        }
+    }
+
+    // eventId, tagId, vehicleNumber, vehicleType, amount, plazaId, laneId, timestamp
+    private static final class ChargeRequestCodec extends MessageCodec<TagChargeRequest> {
+        ChargeRequestCodec() {
+            super(TagChargeRequest.class, 2, 1);
+        }
+
+        @Override
+        protected void write(TagChargeRequest req, ByteWriter out) {
+            out.writeVarInt(bit(0, req.getEventId()) | bit(1, req.getTagId()) | bit(2, req.getVehicleNumber())
+                    | bit(3, req.getVehicleType()) | bit(4, req.getAmount()) | bit(5, req.getPlazaId())
+                    | bit(6, req.getLaneId()) | bit(7, req.getTimestamp()));
+            if (req.getEventId() != null) CodecSupport.writeUuid(out, req.getEventId());
+            if (req.getTagId() != null) out.writeString(req.getTagId());
+            if (req.getVehicleNumber() != null) out.writeString(req.getVehicleNumber());
+            if (req.getVehicleType() != null) out.writeString(req.getVehicleType());
+            if (req.getAmount() != null) CodecSupport.writeMoney(out, req.getAmount());
+            if (req.getPlazaId() != null) out.writeString(req.getPlazaId());
+            if (req.getLaneId() != null) out.writeString(req.getLaneId());
+            if (req.getTimestamp() != null) CodecSupport.writeTimestamp(out, req.getTimestamp());
+        }
+
+        @Override
+        protected TagChargeRequest read(ByteReader in, int version) {
+            int present = in.readVarInt();
+            TagChargeRequest req = new TagChargeRequest();
+            if (has(present, 0)) req.setEventId(CodecSupport.readUuid(in));
+            if (has(present, 1)) req.setTagId(in.readString());
+            if (has(present, 2)) req.setVehicleNumber(in.readString());
+            if (has(present, 3)) req.setVehicleType(in.readString());
+            if (has(present, 4)) req.setAmount(CodecSupport.readMoney(in));
+            if (has(present, 5)) req.setPlazaId(in.readString());
+            if (has(present, 6)) req.setLaneId(in.readString());
+            if (has(present, 7)) req.setTimestamp(CodecSupport.readTimestamp(in));
+            return req;
+        }
+    }
+
+    // eventId, tagId, status, approvalCode, failureReason
+    private static final class ChargeResponseCodec extends MessageCodec<TagChargeResponse> {
+        ChargeResponseCodec() {
+            super(TagChargeResponse.class, 3, 1);
+        }
+
+        @Override
+        protected void write(TagChargeResponse resp, ByteWriter out) {
+            out.writeVarInt(bit(0, resp.getEventId()) | bit(1, resp.getTagId()) | bit(2, resp.getStatus())
+                    | bit(3, resp.getApprovalCode()) | bit(4, resp.getFailureReason()));
+            if (resp.getEventId() != null) CodecSupport.writeUuid(out, resp.getEventId());
+            if (resp.getTagId() != null) out.writeString(resp.getTagId());
+            if (resp.getStatus() != null) out.writeString(resp.getStatus().name());
+            if (resp.getApprovalCode() != null) out.writeString(resp.getApprovalCode());
+            if (resp.getFailureReason() != null) out.writeString(resp.getFailureReason());
+        }
+
+        @Override
+        protected TagChargeResponse read(ByteReader in, int version) {
+            int present = in.readVarInt();
+            TagChargeResponse resp = new TagChargeResponse();
+            if (has(present, 0)) resp.setEventId(CodecSupport.readUuid(in));
+            if (has(present, 1)) resp.setTagId(in.readString());
+            if (has(present, 2)) resp.setStatus(ChargeStatus.valueOf(in.readString()));
+            if (has(present, 3)) resp.setApprovalCode(in.readString());
+            if (has(present, 4)) resp.setFailureReason(in.readString());
+            return resp;
+        }
+    }
+
+    // eventId, tagId, plazaId, laneId, decision, reason, timestamp
+    private static final class GateCommandCodec extends MessageCodec<OpenGateCommand> {
+        GateCommandCodec() {
+            super(OpenGateCommand.class, 4, 1);
+        }
+
+        @Override
+        protected void write(OpenGateCommand cmd, ByteWriter out) {
+            out.writeVarInt(bit(0, cmd.getEventId()) | bit(1, cmd.getTagId()) | bit(2, cmd.getPlazaId())
+                    | bit(3, cmd.getLaneId()) | bit(4, cmd.getDecision()) | bit(5, cmd.getReason())
+                    | bit(6, cmd.getTimestamp()));
+            if (cmd.getEventId() != null) CodecSupport.writeUuid(out, cmd.getEventId());
+            if (cmd.getTagId() != null) out.writeString(cmd.getTagId());
+            if (cmd.getPlazaId() != null) out.writeString(cmd.getPlazaId());
+            if (cmd.getLaneId() != null) out.writeString(cmd.getLaneId());
+            if (cmd.getDecision() != null) out.writeString(cmd.getDecision().name());
+            if (cmd.getReason() != null) out.writeString(cmd.getReason());
+            if (cmd.getTimestamp() != null) CodecSupport.writeInstant(out, cmd.getTimestamp());
+        }
+
+        @Override
+        protected OpenGateCommand read(ByteReader in, int version) {
+            int present = in.readVarInt();
+            OpenGateCommand cmd = new OpenGateCommand();
+            if (has(present, 0)) cmd.setEventId(CodecSupport.readUuid(in));
+            if (has(present, 1)) cmd.setTagId(in.readString());
+            if (has(present, 2)) cmd.setPlazaId(in.readString());
+            if (has(present, 3)) cmd.setLaneId(in.readString());
+            if (has(present, 4)) cmd.setDecision(Decision.valueOf(in.readString()));
+            if (has(present, 5)) cmd.setReason(in.readString());
+            if (has(present, 6)) cmd.setTimestamp(CodecSupport.readInstant(in));
+            return cmd;
+        }
+    }
+}
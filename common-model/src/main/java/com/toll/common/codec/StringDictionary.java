@@ -0,0 +1,52 @@
+package com.toll.common.codec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-message dictionary for low-cardinality strings (plaza, lane, vehicle type, status).
+ * Index 0 is reserved for {@code null}; entries are numbered from 1 in first-seen order.
+ */
+public final class StringDictionary {
+
+    private final Map<String, Integer> index = new HashMap<>();
+    private final List<String> entries = new ArrayList<>();
+
+    public int code(String value) {
+        if (value == null) return 0;
+        Integer code = index.get(value);
+        if (code == null) {
+            entries.add(value);
+            code = entries.size();
+            index.put(value, code);
+        }
+        return code;
+    }
+
+    public void writeTo(ByteWriter out) {
+        out.writeVarInt(entries.size());
+        for (String e : entries) {
+            out.writeString(e);
+        }
+    }
+
+    /** Reads a dictionary written by {@link #writeTo} and returns it as a code → value table. */
+    public static String[] readFrom(ByteReader in) {
+        int n = in.readVarInt();
+        if (n > in.remaining()) throw new IllegalArgumentException("Dictionary size " + n + " exceeds input");
+        String[] table = new String[n + 1];
+        for (int i = 1; i <= n; i++) {
+            table[i] = in.readString();
+        }
+        return table;
+    }
+
+    public static String lookup(String[] table, int code) {
+        if (code < 0 || code >= table.length) {
+            throw new IllegalArgumentException("Unknown dictionary code " + code);
+        }
+        return table[code];
+    }
+}
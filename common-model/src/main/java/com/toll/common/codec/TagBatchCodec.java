@@ -0,0 +1,201 @@
+package com.toll.common.codec;
+
+import com.toll.common.id.EventIds;
+import com.toll.common.model.CurrentTrip;
+import com.toll.common.model.TagInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Versioned binary encoding of a batch of {@link TagInfo} reads, used between edge and ingest
+ * as an alternative to JSON on metered plaza uplinks.
+ *
+ * <pre>
+ * header : 'T' 'B' version(1) compression(1) [varint rawLength if compressed]
+ * body   : dictionary, varint recordCount, recordCount x (varint length, record)
+ * record : varint presence bits, then each present field in declaration order
+ * </pre>
+ * Version 1 batches, whose event id was a string, are still read.
+ * Plaza, lane, vehicle type, trip status and blacklist reason are dictionary-coded; money and
+ * timestamps use the compact forms in {@link CodecSupport}. Records are length-prefixed so a
+ * reader skips fields appended by a newer minor revision.
+ */
+public final class TagBatchCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.toll.tag-batch";
+    public static final int VERSION = 2; // 2: trip eventId as 16 raw bytes instead of text
+
+    private static final int MAGIC_0 = 'T';
+    private static final int MAGIC_1 = 'B';
+    private static final int COMPRESS_MIN_BYTES = 512;
+    private static final int MAX_RAW_BYTES = 64 * 1024 * 1024;
+
+    /** Block compression applied to the body; the id is written in the header. */
+    public enum Compression {
+        NONE, DEFLATE
+    }
+
+    private TagBatchCodec() {
+    }
+
+    public static byte[] encode(List<TagInfo> tags, Compression compression) {
+        StringDictionary dict = new StringDictionary();
+        ByteWriter records = new ByteWriter(tags.size() * 64);
+        ByteWriter record = new ByteWriter(128);
+        for (TagInfo tag : tags) {
+            record.reset();
+            writeTag(record, tag, dict);
+            records.writeVarInt(record.size());
+            records.writeBytes(record.buffer(), 0, record.size());
+        }
+
+        ByteWriter body = new ByteWriter(records.size() + 64);
+        dict.writeTo(body);
+        body.writeVarInt(tags.size());
+        body.writeBytes(records.buffer(), 0, records.size());
+
+        boolean compress = compression == Compression.DEFLATE && body.size() >= COMPRESS_MIN_BYTES;
+        ByteWriter out = new ByteWriter(body.size() + 16);
+        out.writeByte(MAGIC_0).writeByte(MAGIC_1).writeByte(VERSION)
+                .writeByte(compress ? Compression.DEFLATE.ordinal() : Compression.NONE.ordinal());
+        if (compress) {
+            out.writeVarInt(body.size());
+            deflate(body, out);
+        } else {
+            out.writeBytes(body.buffer(), 0, body.size());
+        }
+        return out.toByteArray();
+    }
+
+    public static List<TagInfo> decode(byte[] data) {
+        ByteReader in = new ByteReader(data);
+        if (in.readByte() != MAGIC_0 || in.readByte() != MAGIC_1) {
+            throw new IllegalArgumentException("Not a tag batch");
+        }
+        int version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported tag batch version " + version);
+        }
+        int compression = in.readByte();
+        if (compression == Compression.DEFLATE.ordinal()) {
+            int rawLength = in.readVarInt();
+            if (rawLength > MAX_RAW_BYTES) throw new IllegalArgumentException("Tag batch too large: " + rawLength);
+            in = new ByteReader(inflate(data, in.position(), rawLength));
+        } else if (compression != Compression.NONE.ordinal()) {
+            throw new IllegalArgumentException("Unsupported tag batch compression " + compression);
+        }
+
+        String[] dict = StringDictionary.readFrom(in);
+        int count = in.readVarInt();
+        if (count > in.remaining()) throw new IllegalArgumentException("Record count " + count + " exceeds input");
+        List<TagInfo> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int len = in.readVarInt();
+            int end = in.position() + len;
+            tags.add(readTag(in, dict, version));
+            in.position(end);
+        }
+        return tags;
+    }
+
+    // ---- record layout -------------------------------------------------
+
+    private static void writeTag(ByteWriter out, TagInfo tag, StringDictionary dict) {
+        CurrentTrip trip = tag.getCurrentTrip();
+        int present = bit(0, tag.getTagId()) | bit(1, tag.getVehicleNumber()) | bit(2, tag.getVehicleType())
+                | bit(3, tag.getBalance()) | bit(4, trip);
+        out.writeVarInt(present);
+        if (tag.getTagId() != null) out.writeString(tag.getTagId());
+        if (tag.getVehicleNumber() != null) out.writeString(tag.getVehicleNumber());
+        if (tag.getVehicleType() != null) out.writeVarInt(dict.code(tag.getVehicleType()));
+        if (tag.getBalance() != null) CodecSupport.writeMoney(out, tag.getBalance());
+        if (trip == null) return;
+
+        int tripPresent = bit(0, trip.getEventId()) | bit(1, trip.getPlazaId()) | bit(2, trip.getLaneId())
+                | bit(3, trip.getTimestamp()) | bit(4, trip.getTollAmount()) | bit(5, trip.getStatus())
+                | bit(6, trip.getBlacklistedReason());
+        out.writeVarInt(tripPresent);
+        if (trip.getEventId() != null) CodecSupport.writeUuid(out, trip.getEventId());
+        if (trip.getPlazaId() != null) out.writeVarInt(dict.code(trip.getPlazaId()));
+        if (trip.getLaneId() != null) out.writeVarInt(dict.code(trip.getLaneId()));
+        if (trip.getTimestamp() != null) CodecSupport.writeTimestamp(out, trip.getTimestamp());
+        if (trip.getTollAmount() != null) CodecSupport.writeMoney(out, trip.getTollAmount());
+        if (trip.getStatus() != null) out.writeVarInt(dict.code(trip.getStatus()));
+        if (trip.getBlacklistedReason() != null) out.writeVarInt(dict.code(trip.getBlacklistedReason()));
+    }
+
+    private static TagInfo readTag(ByteReader in, String[] dict, int version) {
+        int present = in.readVarInt();
+        TagInfo tag = new TagInfo();
+        if (has(present, 0)) tag.setTagId(in.readString());
+        if (has(present, 1)) tag.setVehicleNumber(in.readString());
+        if (has(present, 2)) tag.setVehicleType(StringDictionary.lookup(dict, in.readVarInt()));
+        if (has(present, 3)) tag.setBalance(CodecSupport.readMoney(in));
+        if (!has(present, 4)) return tag;
+
+        int tripPresent = in.readVarInt();
+        CurrentTrip trip = new CurrentTrip();
+        if (has(tripPresent, 0)) {
+            trip.setEventId(version == 1 ? EventIds.parseOrNull(in.readString()) : CodecSupport.readUuid(in));
+        }
+        if (has(tripPresent, 1)) trip.setPlazaId(StringDictionary.lookup(dict, in.readVarInt()));
+        if (has(tripPresent, 2)) trip.setLaneId(StringDictionary.lookup(dict, in.readVarInt()));
+        if (has(tripPresent, 3)) trip.setTimestamp(CodecSupport.readTimestamp(in));
+        if (has(tripPresent, 4)) trip.setTollAmount(CodecSupport.readMoney(in));
+        if (has(tripPresent, 5)) trip.setStatus(StringDictionary.lookup(dict, in.readVarInt()));
+        if (has(tripPresent, 6)) trip.setBlacklistedReason(StringDictionary.lookup(dict, in.readVarInt()));
+        tag.setCurrentTrip(trip);
+        return tag;
+    }
+
+    private static int bit(int index, Object value) {
+        return value != null ? 1 << index : 0;
+    }
+
+    private static boolean has(int present, int index) {
+        return (present & (1 << index)) != 0;
+    }
+
+    // ---- compression ---------------------------------------------------
+
+    private static void deflate(ByteWriter body, ByteWriter out) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(body.buffer(), 0, body.size());
+            deflater.finish();
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.writeBytes(chunk, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int rawLength) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+                n += read;
+            }
+            if (n != rawLength) {
+                throw new IllegalArgumentException("Compressed tag batch truncated: " + n + " of " + rawLength + " bytes");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed tag batch", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.toll.common.codec;
+
+import com.toll.common.id.EventIds;
+import com.toll.common.model.CurrentTrip;
+import com.toll.common.model.TagInfo;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Binary Redis encoding of {@link TagInfo} (schema 1, version 2).
+ *
+ * <pre>
+ * offset 3 : flags (bit 0 balance, bit 1 trip)
+ * offset 4 : balance, 8-byte little-endian double (0 when absent)
+ * then     : tagId, vehicleNumber, vehicleType, and if bit 1 the trip:
+ *            trip flags (bit 0 toll, bit 1 timestamp as epoch millis, bit 2 timestamp as text, bit 3 eventId),
+ *            eventId (16 bytes), plazaId, laneId, timestamp, toll, status, blacklistedReason
+ * </pre>
+ * Version 1 stored the eventId as a word and had no bit 3; it is still read.
+ * The balance sits at a fixed offset so the edge's tag-read script can read and patch it in place.
+ */
+public class TagInfoRedisSerializer extends BinaryRedisSerializer<TagInfo> {
+
+    public static final int SCHEMA = 1;
+    public static final int VERSION = 2;
+
+    private static final int HAS_BALANCE = 1;
+    private static final int HAS_TRIP = 2;
+    private static final int TRIP_HAS_TOLL = 1;
+    private static final int TRIP_EPOCH_MILLIS = 2;
+    private static final int TRIP_TEXT_TIMESTAMP = 4;
+    private static final int TRIP_HAS_EVENT_ID = 8;
+
+    public TagInfoRedisSerializer(Format writeFormat) {
+        super(TagInfo.class, SCHEMA, VERSION, writeFormat);
+    }
+
+    @Override
+    protected void write(TagInfo tag, ByteWriter out) {
+        CurrentTrip trip = tag.getCurrentTrip();
+        out.writeByte((tag.getBalance() != null ? HAS_BALANCE : 0) | (trip != null ? HAS_TRIP : 0));
+        out.writeDouble(tag.getBalance() != null ? tag.getBalance() : 0.0);
+        writeWord(out, tag.getTagId());
+        writeWord(out, tag.getVehicleNumber());
+        writeWord(out, tag.getVehicleType());
+        if (trip == null) return;
+
+        Instant at = canonicalInstant(trip.getTimestamp());
+        out.writeByte((trip.getTollAmount() != null ? TRIP_HAS_TOLL : 0)
+                | (at != null ? TRIP_EPOCH_MILLIS : trip.getTimestamp() != null ? TRIP_TEXT_TIMESTAMP : 0)
+                | (trip.getEventId() != null ? TRIP_HAS_EVENT_ID : 0));
+        if (trip.getEventId() != null) {
+            CodecSupport.writeUuid(out, trip.getEventId());
+        }
+        writeWord(out, trip.getPlazaId());
+        writeWord(out, trip.getLaneId());
+        if (at != null) {
+            writeEpochMillis(out, at);
+        } else if (trip.getTimestamp() != null) {
+            out.writeString(trip.getTimestamp());
+        }
+        if (trip.getTollAmount() != null) {
+            CodecSupport.writeMoney(out, trip.getTollAmount());
+        }
+        writeWord(out, trip.getStatus());
+        writeWord(out, trip.getBlacklistedReason());
+    }
+
+    @Override
+    protected TagInfo read(ByteReader in, int version) {
+        int flags = in.readByte();
+        double balance = in.readDouble();
+        TagInfo tag = new TagInfo();
+        tag.setBalance((flags & HAS_BALANCE) != 0 ? balance : null);
+        tag.setTagId(readWord(in));
+        tag.setVehicleNumber(readWord(in));
+        tag.setVehicleType(readWord(in));
+        if ((flags & HAS_TRIP) == 0) return tag;
+
+        int tripFlags = in.readByte();
+        CurrentTrip trip = new CurrentTrip();
+        if (version == 1) {
+            trip.setEventId(EventIds.parseOrNull(readWord(in)));
+        } else if ((tripFlags & TRIP_HAS_EVENT_ID) != 0) {
+            trip.setEventId(CodecSupport.readUuid(in));
+        }
+        trip.setPlazaId(readWord(in));
+        trip.setLaneId(readWord(in));
+        if ((tripFlags & TRIP_EPOCH_MILLIS) != 0) {
+            trip.setTimestamp(readEpochMillis(in).toString());
+        } else if ((tripFlags & TRIP_TEXT_TIMESTAMP) != 0) {
+            trip.setTimestamp(in.readString());
+        }
+        if ((tripFlags & TRIP_HAS_TOLL) != 0) {
+            trip.setTollAmount(CodecSupport.readMoney(in));
+        }
+        trip.setStatus(readWord(in));
+        trip.setBlacklistedReason(readWord(in));
+        tag.setCurrentTrip(trip);
+        return tag;
+    }
+
+    // Only store as epoch millis when Instant.toString() gives back exactly the stored text
+    private static Instant canonicalInstant(String iso) {
+        if (iso == null) return null;
+        try {
+            Instant instant = Instant.parse(iso);
+            return instant.toString().equals(iso) ? instant : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
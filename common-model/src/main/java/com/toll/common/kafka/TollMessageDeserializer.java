@@ -0,0 +1,77 @@
+package com.toll.common.kafka;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.toll.common.codec.MessageCodec;
+import com.toll.common.codec.MessageCodecs;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Kafka value deserializer for the toll messages. Binary payloads are decoded by the codec their
+ * schema byte names, from any version up to the current one; anything else is read as the JSON the
+ * services wrote before, into the configured type. Type headers are neither needed nor trusted.
+ * When created by Kafka from class name the type is taken from {@value #TYPE_CONFIG}.
+ */
+public class TollMessageDeserializer<T> implements Deserializer<T> {
+
+    public static final String TYPE_CONFIG = "toll.message.type";
+
+    private final ObjectMapper json = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private Class<T> type;
+
+    public TollMessageDeserializer() {
+    }
+
+    public TollMessageDeserializer(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(TYPE_CONFIG);
+        if (configured == null || type != null) return;
+        try {
+            type = configured instanceof Class<?> c ? (Class<T>) c : (Class<T>) Class.forName(configured.toString());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown " + TYPE_CONFIG + ": " + configured, e);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) return null;
+        int schema = MessageCodec.schemaOf(data);
+        if (schema >= 0) {
+            MessageCodec<?> codec = MessageCodecs.forSchema(schema);
+            if (codec == null || (type != null && codec.type() != type)) {
+                throw new SerializationException("Unexpected message schema " + schema + " on " + topic);
+            }
+            try {
+                return type(codec).cast(codec.decode(data));
+            } catch (IllegalArgumentException e) {
+                throw new SerializationException("Corrupt " + codec.type().getSimpleName() + " on " + topic, e);
+            }
+        }
+        if (type == null) {
+            throw new SerializationException("JSON payload on " + topic + " but no " + TYPE_CONFIG + " configured");
+        }
+        try {
+            return json.readValue(data, type);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read " + type.getSimpleName() + " from JSON on " + topic, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> type(MessageCodec<?> codec) {
+        return type != null ? type : (Class<T>) codec.type();
+    }
+}
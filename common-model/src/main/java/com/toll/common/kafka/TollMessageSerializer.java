@@ -0,0 +1,61 @@
+package com.toll.common.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.toll.common.codec.MessageCodec;
+import com.toll.common.codec.MessageCodecs;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Kafka value serializer for the toll messages, writing the {@link MessageCodecs} binary encoding or
+ * plain JSON (no type headers) per {@link MessageCodec.Format}. Pair it with
+ * {@link TollMessageDeserializer}, which reads both, so a topic can move to binary once all of its
+ * consumers run that deserializer. When created by Kafka from class name the format is taken from
+ * {@value #FORMAT_CONFIG} (default JSON). Raw {@code byte[]} values, which dead-letter recoverers
+ * forward for records that failed to deserialize, are passed through untouched.
+ */
+public class TollMessageSerializer<T> implements Serializer<T> {
+
+    public static final String FORMAT_CONFIG = "toll.message.format";
+
+    private final ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule());
+    private MessageCodec.Format format;
+
+    public TollMessageSerializer() {
+        this(MessageCodec.Format.JSON);
+    }
+
+    public TollMessageSerializer(MessageCodec.Format format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(FORMAT_CONFIG);
+        if (configured != null) {
+            format = MessageCodec.Format.valueOf(configured.toString());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] serialize(String topic, T data) {
+        if (data == null) return null;
+        if (data instanceof byte[] raw) return raw;
+        MessageCodec<T> codec = format == MessageCodec.Format.BINARY
+                ? MessageCodecs.forType((Class<T>) data.getClass())
+                : null;
+        if (codec != null) {
+            return codec.encode(data);
+        }
+        try {
+            return json.writeValueAsBytes(data);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + data.getClass().getSimpleName() + " for " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.toll.common.log;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of records in memory-mapped segment files under one directory, with a committed
+ * cursor kept in a {@code cursor} file next to them. Used by the edge read outbox and the verify
+ * write-behind journal, which each supply the {@link Codec} for their records.
+ *
+ * Records can be read from any position up to the last append while others are appended. Segments
+ * wholly behind the committed cursor are recycled as spare files for later segments, so steady-state
+ * appends don't allocate new files.
+ *
+ * Record layout: [int length][int crc32(segmentId, payload)][payload]. A length of -1 marks a rolled segment.
+ * Positions are packed as (segmentId << 32 | offset).
+ */
+@Slf4j
+public class SegmentLog<T> {
+
+    private static final int HEADER = 8;
+    private static final int ROLL = -1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String SPARE_PREFIX = "spare-";
+    private static final int MAX_SPARES = 2;
+
+    /** Turns records into payloads and back; {@code decode} throws for a payload it can't read. */
+    public interface Codec<T> {
+        byte[] encode(T record);
+
+        T decode(byte[] payload) throws IOException;
+    }
+
+    /**
+     * Records read from the log: {@code records} and {@code bytes} count everything consumed between
+     * {@code start} and {@code end}, including records skipped as unreadable.
+     */
+    public record Slice<T>(List<T> items, long start, long end, int records, long bytes) {
+    }
+
+    /** Records found after the committed cursor when the log was opened. */
+    public record Backlog(long records, long bytes) {
+    }
+
+    private final String name;
+    private final Path root;
+    private final int segmentBytes;
+    private final Codec<T> codec;
+
+    private final Map<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Deque<Path> spares = new ArrayDeque<>();
+    private final Object writeLock = new Object();
+
+    private MappedByteBuffer cursorFile;
+    private volatile Segment tail;
+    private int writeOffset;
+    private volatile long writePosition;
+    private volatile long committed;
+
+    /** @param name what the log holds, for log lines and errors, e.g. "read outbox" */
+    public SegmentLog(String name, Path root, int segmentBytes, Codec<T> codec) {
+        this.name = name;
+        this.root = root;
+        this.segmentBytes = segmentBytes;
+        this.codec = codec;
+    }
+
+    /** Maps the existing segments, or creates the first one, and finds the end of the valid records. */
+    public Backlog open() throws IOException {
+        Files.createDirectories(root);
+
+        try (FileChannel ch = FileChannel.open(root.resolve("cursor"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            cursorFile = ch.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+        committed = cursorFile.getLong(0);
+
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String fileName = p.getFileName().toString();
+                if (fileName.startsWith(SPARE_PREFIX)) {
+                    spares.add(p);
+                } else if (fileName.endsWith(SEGMENT_SUFFIX)) {
+                    long id = Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+                    if (id < segmentOf(committed)) {
+                        recycle(p);
+                    } else {
+                        segments.put(id, new Segment(id, p, map(p)));
+                    }
+                }
+            }
+        }
+
+        long count = 0;
+        long bytes = 0;
+        if (segments.isEmpty()) {
+            committed = position(segmentOf(committed), 0);
+            tail = createSegment(segmentOf(committed));
+            writeOffset = 0;
+        } else {
+            for (Segment s : segments.values()) {
+                int from = s.id == segmentOf(committed) ? offsetOf(committed) : 0;
+                int[] scanned = scan(s, from);
+                count += scanned[1];
+                bytes += scanned[0] - from;
+                tail = s;
+                writeOffset = scanned[0];
+            }
+        }
+        writePosition = position(tail.id, writeOffset);
+        cursorFile.putLong(0, committed);
+        cursorFile.force();
+        return new Backlog(count, bytes);
+    }
+
+    /**
+     * Appends records in order and returns the bytes they take on disk. With {@code force} they are on
+     * disk when this returns; otherwise they survive a process restart but need {@link #force} to
+     * survive power loss.
+     */
+    public long append(List<T> records, boolean force) {
+        List<byte[]> payloads = new ArrayList<>(records.size());
+        for (T record : records) {
+            byte[] payload = codec.encode(record);
+            if (HEADER + payload.length > segmentBytes) {
+                throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds " + name
+                        + " segment size");
+            }
+            payloads.add(payload);
+        }
+
+        long bytes = 0;
+        synchronized (writeLock) {
+            for (byte[] payload : payloads) {
+                if (writeOffset + HEADER + payload.length > segmentBytes) {
+                    roll();
+                }
+                MappedByteBuffer buf = tail.buffer;
+                buf.put(writeOffset + HEADER, payload);
+                buf.putInt(writeOffset + 4, checksum(tail.id, payload, payload.length));
+                buf.putInt(writeOffset, payload.length); // length last: a torn write never looks complete
+                writeOffset += HEADER + payload.length;
+                bytes += HEADER + payload.length;
+            }
+            if (force) tail.buffer.force(); // earlier segments were forced when they rolled
+            writePosition = position(tail.id, writeOffset);
+        }
+        return bytes;
+    }
+
+    /**
+     * Up to {@code maxRecords} records / {@code maxBytes} bytes from {@code start}, stopping at the last
+     * append. Torn or unreadable records are skipped.
+     */
+    public Slice<T> read(long start, int maxRecords, long maxBytes) {
+        long end = writePosition;
+        long pos = start;
+        int records = 0;
+        long bytes = 0;
+        List<T> items = new ArrayList<>(Math.min(maxRecords, 1024));
+
+        while (records < maxRecords && bytes < maxBytes && pos != end) {
+            long seg = segmentOf(pos);
+            int off = offsetOf(pos);
+            Segment s = segments.get(seg);
+            if (s == null || off + HEADER > segmentBytes) {
+                pos = position(seg + 1, 0);
+                continue;
+            }
+            int len = s.buffer.getInt(off);
+            if (len == ROLL || len <= 0 || off + HEADER + len > segmentBytes) {
+                if (len != ROLL) {
+                    log.warn("Segment {} of the {} truncated at offset {}, skipping to next segment", seg, name, off);
+                }
+                pos = position(seg + 1, 0);
+                continue;
+            }
+            byte[] payload = new byte[len];
+            s.buffer.get(off + HEADER, payload);
+            pos = position(seg, off + HEADER + len);
+            records++;
+            bytes += HEADER + len;
+
+            if (s.buffer.getInt(off + 4) != checksum(seg, payload, len)) {
+                log.warn("Record at segment {} offset {} of the {} failed checksum, skipping", seg, off, name);
+                continue;
+            }
+            try {
+                items.add(codec.decode(payload));
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Record at segment {} offset {} of the {} unreadable, skipping: {}",
+                        seg, off, name, e.getMessage());
+            }
+        }
+        return new Slice<>(items, start, pos, records, bytes);
+    }
+
+    /**
+     * Moves the committed cursor to {@code position} and recycles the segments wholly behind it.
+     * With {@code force} the cursor is on disk when this returns.
+     */
+    public void commit(long position, boolean force) {
+        committed = position;
+        cursorFile.putLong(0, position);
+        if (force) cursorFile.force();
+
+        long committedSegment = segmentOf(position);
+        synchronized (writeLock) {
+            for (Segment s : new ArrayList<>(segments.values())) {
+                if (s.id >= committedSegment || s == tail) break;
+                segments.remove(s.id);
+                recycle(s.path);
+            }
+        }
+    }
+
+    public long committed() {
+        return committed;
+    }
+
+    /** Position just past the last append. */
+    public long writePosition() {
+        return writePosition;
+    }
+
+    public boolean hasUncommitted() {
+        return committed != writePosition;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    /** Flushes dirty pages of the tail segment and the cursor. */
+    public void force() {
+        Segment current = tail;
+        if (current != null) current.buffer.force();
+        if (cursorFile != null) cursorFile.force();
+    }
+
+    // ------------------------------------------------------------------
+
+    private void roll() {
+        if (writeOffset + Integer.BYTES <= segmentBytes) {
+            tail.buffer.putInt(writeOffset, ROLL);
+        }
+        tail.buffer.force();
+        tail = createSegment(tail.id + 1);
+        writeOffset = 0;
+    }
+
+    /** Returns {endOffset, recordCount} for the valid records in a segment from {@code from}. */
+    private int[] scan(Segment s, int from) {
+        int off = from;
+        int count = 0;
+        while (off + HEADER <= segmentBytes) {
+            int len = s.buffer.getInt(off);
+            if (len <= 0 || off + HEADER + len > segmentBytes) break;
+            byte[] payload = new byte[len];
+            s.buffer.get(off + HEADER, payload);
+            if (s.buffer.getInt(off + 4) != checksum(s.id, payload, len)) break;
+            off += HEADER + len;
+            count++;
+        }
+        return new int[]{off, count};
+    }
+
+    private Segment createSegment(long id) {
+        Path path = root.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+        try {
+            Path spare = spares.poll();
+            if (spare != null) {
+                Files.move(spare, path);
+            } else {
+                try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
+                    raf.setLength(segmentBytes);
+                }
+            }
+            Segment s = new Segment(id, path, map(path));
+            segments.put(id, s);
+            return s;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create " + name + " segment " + path, e);
+        }
+    }
+
+    private void recycle(Path path) {
+        try {
+            if (spares.size() < MAX_SPARES) {
+                Path spare = root.resolve(SPARE_PREFIX + path.getFileName());
+                Files.move(path, spare);
+                spares.add(spare);
+            } else {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to recycle {} segment {}: {}", name, path, e.getMessage());
+        }
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    // Seeding the checksum with the segment id means stale bytes in a recycled file never validate.
+    private static int checksum(long segmentId, byte[] payload, int len) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < Long.BYTES; i++) {
+            crc.update((int) (segmentId >>> (i * 8)));
+        }
+        crc.update(payload, 0, len);
+        return (int) crc.getValue();
+    }
+
+    private static long position(long segmentId, int offset) {
+        return (segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static long segmentOf(long position) {
+        return position >>> 32;
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    private record Segment(long id, Path path, MappedByteBuffer buffer) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.toll.common.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pub/sub message announcing a change to the BLACKLIST:* keys, so services holding a local copy
+ * of the blacklist can stay current without polling Redis.
+ * Wire format: {@code +tagId<TAB>reason}, {@code -tagId} or {@code *} (everything cleared).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlacklistChange {
+
+    public static final String CHANNEL = "toll.blacklist.changes";
+
+    public enum Type { ADDED, REMOVED, RESET }
+
+    private Type type;
+    private String tagId;
+    private String reason;
+
+    public static BlacklistChange added(String tagId, String reason) {
+        return new BlacklistChange(Type.ADDED, tagId, reason);
+    }
+
+    public static BlacklistChange removed(String tagId) {
+        return new BlacklistChange(Type.REMOVED, tagId, null);
+    }
+
+    public static BlacklistChange reset() {
+        return new BlacklistChange(Type.RESET, null, null);
+    }
+
+    public String encode() {
+        switch (type) {
+            case ADDED:
+                return "+" + tagId + "\t" + (reason != null ? reason : "");
+            case REMOVED:
+                return "-" + tagId;
+            default:
+                return "*";
+        }
+    }
+
+    public static BlacklistChange parse(String message) {
+        if (message == null || message.isEmpty()) {
+            throw new IllegalArgumentException("Empty blacklist change message");
+        }
+        switch (message.charAt(0)) {
+            case '+': {
+                int tab = message.indexOf('\t');
+                return tab < 0
+                        ? added(message.substring(1), null)
+                        : added(message.substring(1, tab), message.substring(tab + 1));
+            }
+            case '-':
+                return removed(message.substring(1));
+            case '*':
+                return reset();
+            default:
+                throw new IllegalArgumentException("Unknown blacklist change message: " + message);
+        }
+    }
+}
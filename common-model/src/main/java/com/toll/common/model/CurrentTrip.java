@@ -6,18 +6,23 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.UUID;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class CurrentTrip implements Serializable {
-    private String eventId; // Unique event identifier for idempotency
+    /** Statuses of reads whose gate decision was already made by the edge while it was offline. */
+    public static final String OFFLINE_OPEN = "OFFLINE_OPEN";
+    public static final String OFFLINE_DENY = "OFFLINE_DENY";
+
+    private UUID eventId; // minted at read time by the edge (EventIds); the idempotency key everywhere downstream
     private String plazaId;
     private String laneId;
     private String timestamp;
     private Double tollAmount;
-    private String status; // PENDING / SUCCESS / FAILED
+    private String status; // PENDING / SUCCESS / FAILED / OFFLINE_OPEN / OFFLINE_DENY
     private String blacklistedReason;
 
 }
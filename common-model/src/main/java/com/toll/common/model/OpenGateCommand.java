@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.UUID;
 
 /**
  * Immutable message asking the gate controller to open/deny a barrier for a given lane.
@@ -16,7 +17,7 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder
 public class OpenGateCommand {
-    private String eventId;     // unique per transaction (idempotency key)
+    private UUID eventId;       // unique per transaction (idempotency key)
     private String tagId;
     private String plazaId;
     private String laneId;
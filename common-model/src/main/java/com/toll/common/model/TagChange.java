@@ -0,0 +1,81 @@
+package com.toll.common.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pub/sub message announcing a write to a TAG:* account, so services holding accounts in memory can
+ * stay coherent with Redis. The {@link com.toll.common.store.TagAccountStore} scripts publish it in the
+ * same script as the write, so subscribers see changes in the order Redis applied them.
+ * Wire format: {@code =tagId<TAB>balanceMinor} (new balance), {@code -tagId} (account replaced),
+ * {@code *} (everything cleared) or {@code ~token} (heartbeat, changes nothing).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagChange {
+
+    public static final String CHANNEL = "toll.tag.changes";
+
+    public enum Type { BALANCE, INVALIDATED, RESET, HEARTBEAT }
+
+    private Type type;
+    private String tagId;
+    private Long balanceMinor;
+    private String token;
+
+    public static TagChange balance(String tagId, long balanceMinor) {
+        return new TagChange(Type.BALANCE, tagId, balanceMinor, null);
+    }
+
+    public static TagChange invalidated(String tagId) {
+        return new TagChange(Type.INVALIDATED, tagId, null, null);
+    }
+
+    public static TagChange reset() {
+        return new TagChange(Type.RESET, null, null, null);
+    }
+
+    public static TagChange heartbeat(String token) {
+        return new TagChange(Type.HEARTBEAT, null, null, token);
+    }
+
+    public String encode() {
+        switch (type) {
+            case BALANCE:
+                return "=" + tagId + "\t" + balanceMinor;
+            case INVALIDATED:
+                return "-" + tagId;
+            case HEARTBEAT:
+                return "~" + token;
+            default:
+                return "*";
+        }
+    }
+
+    public static TagChange parse(String message) {
+        if (message == null || message.isEmpty()) {
+            throw new IllegalArgumentException("Empty tag change message");
+        }
+        switch (message.charAt(0)) {
+            case '=': {
+                int tab = message.indexOf('\t');
+                if (tab < 0) throw new IllegalArgumentException("Tag balance change without a balance: " + message);
+                try {
+                    return balance(message.substring(1, tab), Long.parseLong(message.substring(tab + 1)));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Bad balance in tag change: " + message);
+                }
+            }
+            case '-':
+                return invalidated(message.substring(1));
+            case '*':
+                return reset();
+            case '~':
+                return heartbeat(message.substring(1));
+            default:
+                throw new IllegalArgumentException("Unknown tag change message: " + message);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.UUID;
 
 /** Message produced by verify-service to request a debit. */
 @Data
@@ -13,7 +14,7 @@ import java.io.Serializable;
 @AllArgsConstructor
 @Builder
 public class TagChargeRequest implements Serializable {
-    private String eventId; // unique transaction reference
+    private UUID eventId; // unique transaction reference
     private String tagId;
     private String vehicleNumber;
     private String vehicleType;
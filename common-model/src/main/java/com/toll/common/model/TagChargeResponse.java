@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.UUID;
 
 /** Produced by payment-service after attempting the charge. */
 @Data
@@ -13,7 +14,7 @@ import java.io.Serializable;
 @AllArgsConstructor
 @Builder
 public class TagChargeResponse implements Serializable {
-    private String eventId; // Needed for idempotency and logs
+    private UUID eventId; // Needed for idempotency and logs
     private String tagId;
     private ChargeStatus status; // // SUCCESS / INSUFFICIENT_FUNDS / ERROR
     private String approvalCode;  // if success
@@ -0,0 +1,26 @@
+package com.toll.common.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Reply of ingest's /ingest/tags once every read of the batch has been acknowledged, failed or timed out.
+ *
+ * For a streamed (NDJSON) upload {@code results} lists only the reads that weren't PUBLISHED, each with
+ * its {@code index}, so the reply stays small however long the stream; reads past
+ * {@code published + failed} were not consumed and must be resent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TagIngestResponse implements Serializable {
+    private int published;
+    private int failed;
+    private List<TagIngestResult> results; // one per read, in request order (streams: failures only)
+}
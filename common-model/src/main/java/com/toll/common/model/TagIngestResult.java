@@ -0,0 +1,36 @@
+package com.toll.common.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/** Outcome of publishing one tag read from an ingest batch, in the same position as the read. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TagIngestResult implements Serializable {
+    public static final String PUBLISHED = "PUBLISHED"; // acknowledged by Kafka
+    public static final String FAILED = "FAILED";       // Kafka send failed; safe to resend
+    public static final String TIMEOUT = "TIMEOUT";     // no ack before the deadline; may still land
+    public static final String REJECTED = "REJECTED";   // invalid read; resending won't help
+
+    private String status;
+    private UUID eventId;
+    private Integer partition; // when PUBLISHED
+    private Long offset;       // when PUBLISHED
+    private String error;      // when not PUBLISHED
+    private Integer index;     // position of the read in a streamed upload
+
+    @JsonIgnore
+    public boolean isRetryable() {
+        return FAILED.equals(status) || TIMEOUT.equals(status);
+    }
+}
@@ -0,0 +1,70 @@
+package com.toll.common.store;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A Lua script called by its SHA1 with EVALSHA, so each call sends the digest instead of the body.
+ * A Redis that hasn't cached the script (after a restart, a failover or SCRIPT FLUSH) answers
+ * NOSCRIPT; {@link #withLoaded} then loads the scripts and makes the call once more.
+ */
+public final class LuaScript {
+
+    private final byte[] body;
+    private final String sha;
+
+    public LuaScript(String body) {
+        this(RedisScript.of(body));
+    }
+
+    private LuaScript(RedisScript<?> script) {
+        this.body = script.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        this.sha = script.getSha1();
+    }
+
+    /** A script kept as a classpath resource, e.g. {@code scripts/tag-read.lua}. */
+    public static LuaScript fromClasspath(String path) {
+        DefaultRedisScript<Object> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(path));
+        return new LuaScript(script);
+    }
+
+    public String sha() {
+        return sha;
+    }
+
+    /**
+     * Makes a call that runs {@code scripts} with EVALSHA; if Redis doesn't have them cached, loads them
+     * and makes it again. Only the commands answered NOSCRIPT didn't run, so a pipeline that mixes
+     * scripts must be safe to repeat.
+     */
+    public static <T> T withLoaded(RedisTemplate<?, ?> template, List<LuaScript> scripts, Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (DataAccessException e) {
+            if (!isNoScript(e)) throw e;
+            template.execute((RedisCallback<Void>) conn -> {
+                for (LuaScript script : scripts) {
+                    conn.scriptingCommands().scriptLoad(script.body);
+                }
+                return null;
+            });
+            return call.get();
+        }
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,419 @@
+package com.toll.common.store;
+
+import com.toll.common.id.EventIds;
+import com.toll.common.model.CurrentTrip;
+import com.toll.common.model.TagInfo;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Tag accounts under {@code TAG:<tagId>}, stored as Redis hashes with one field per attribute.
+ *
+ * The balance is held in integer minor units ({@value #BALANCE}) so it can be changed with an atomic
+ * HINCRBY instead of a read-modify-write of the whole tag; trip fields are prefixed {@code trip.}.
+ * Keys still in the legacy layout (one string value, JSON or binary) are read through the tag
+ * template's serializer and converted to a hash the first time they are written.
+ *
+ * Pending charges are held against the balance: {@code hold.<eventId>} records the amount of each hold
+ * and {@value #HELD} their total, so a new hold only succeeds if {@code balance - held} covers it. A hold
+ * is later committed (taken off the balance) or released; both are idempotent, and holds survive
+ * {@link #put(TagInfo, Duration)} so a cache refresh doesn't forget them. A hold that is never settled lasts until the
+ * account's TTL expires. A committed charge leaves {@code done.<eventId>} behind, so a repeated commit
+ * doesn't take it off twice, until the caller has recorded it and calls {@link #forgetCharge}.
+ *
+ * Every script that changes an account's attributes or balance also publishes a
+ * {@link com.toll.common.model.TagChange} on {@value com.toll.common.model.TagChange#CHANNEL}
+ * ({@code 'toll.tag.changes'} in the scripts), so in-memory copies are told in the order of the writes.
+ * Holds don't change the balance and aren't announced.
+ */
+public class TagAccountStore {
+
+    public static final String KEY_PREFIX = "TAG:";
+    public static final String BALANCE = "balanceMinor";
+    public static final String HELD = "heldMinor";
+
+    /** Every trip field, so a new trip can clear what an earlier one left behind. */
+    public static final List<String> TRIP_FIELDS = List.of(
+            "trip.eventId", "trip.plazaId", "trip.laneId", "trip.timestamp", "trip.tollAmount", "trip.status",
+            "trip.blacklistedReason");
+
+    // Returns { field/value list } for a hash, { value } for a legacy string, nothing when missing
+    private static final LuaScript GET = new LuaScript("""
+            local t = redis.call('TYPE', KEYS[1]).ok
+            if t == 'hash' then return { redis.call('HGETALL', KEYS[1]) } end
+            if t == 'string' then return { redis.call('GET', KEYS[1]) } end
+            return {}
+            """);
+
+    // Replaces the whole account: drops the old value (hash or legacy string) and writes the fields,
+    // carrying over any holds and charge markers
+    private static final LuaScript PUT = new LuaScript("""
+            local keep = {}
+            if redis.call('TYPE', KEYS[1]).ok == 'hash' then
+                local old = redis.call('HGETALL', KEYS[1])
+                for i = 1, #old, 2 do
+                    local prefix = string.sub(old[i], 1, 5)
+                    if old[i] == 'heldMinor' or prefix == 'hold.' or prefix == 'done.' then
+                        keep[#keep + 1] = old[i]
+                        keep[#keep + 1] = old[i + 1]
+                    end
+                end
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+            if #keep > 0 then redis.call('HSET', KEYS[1], unpack(keep)) end
+            if tonumber(ARGV[1]) > 0 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end
+            redis.call('PUBLISH', 'toll.tag.changes', '-' .. string.sub(KEYS[1], 5))
+            return 1
+            """);
+
+    // Overwrites the given fields of a cached account and renews its TTL; leaves missing or legacy keys alone
+    private static final LuaScript REFRESH = new LuaScript("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then return 0 end
+            redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('PUBLISH', 'toll.tag.changes', '-' .. string.sub(KEYS[1], 5))
+            return 1
+            """);
+
+    // Only touches hashes, so a missing or legacy key is never turned into a balance-only account
+    private static final LuaScript INCREMENT = new LuaScript("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then return false end
+            local balance = redis.call('HINCRBY', KEYS[1], 'balanceMinor', ARGV[1])
+            redis.call('PUBLISH', 'toll.tag.changes', '=' .. string.sub(KEYS[1], 5) .. '\\t' .. balance)
+            return balance
+            """);
+
+    // ARGV[1] = eventId, ARGV[2] = amount in minor units; 1 = held (now or before), 0 = not enough available
+    private static final LuaScript RESERVE = new LuaScript("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then return false end
+            local hold = 'hold.' .. ARGV[1]
+            if redis.call('HEXISTS', KEYS[1], hold) == 1 then return 1 end
+            local balance = tonumber(redis.call('HGET', KEYS[1], 'balanceMinor') or '0')
+            local held = tonumber(redis.call('HGET', KEYS[1], 'heldMinor') or '0')
+            if balance - held < tonumber(ARGV[2]) then return 0 end
+            redis.call('HSET', KEYS[1], hold, ARGV[2])
+            redis.call('HINCRBY', KEYS[1], 'heldMinor', ARGV[2])
+            return 1
+            """);
+
+    // ARGV[1] = eventId, ARGV[2] = amount to take off if the event holds none (optional). Takes the event's
+    // charge off the balance once: the held amount, else ARGV[2], and leaves done.<eventId> so a repeat only
+    // returns the balance. Returns the balance, nothing if there is neither a hold nor an amount
+    private static final LuaScript COMMIT_HOLD = new LuaScript("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then return false end
+            local done = 'done.' .. ARGV[1]
+            if redis.call('HEXISTS', KEYS[1], done) == 1 then
+                return tonumber(redis.call('HGET', KEYS[1], 'balanceMinor') or '0')
+            end
+            local hold = 'hold.' .. ARGV[1]
+            local amount = tonumber(redis.call('HGET', KEYS[1], hold))
+            if amount then
+                redis.call('HDEL', KEYS[1], hold)
+                redis.call('HINCRBY', KEYS[1], 'heldMinor', -amount)
+            elseif ARGV[2] then
+                amount = tonumber(ARGV[2])
+            else
+                return false
+            end
+            local balance = redis.call('HINCRBY', KEYS[1], 'balanceMinor', -amount)
+            redis.call('HSET', KEYS[1], done, amount)
+            redis.call('PUBLISH', 'toll.tag.changes', '=' .. string.sub(KEYS[1], 5) .. '\\t' .. balance)
+            return balance
+            """);
+
+    private static final LuaScript RELEASE_HOLD = new LuaScript("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then return false end
+            local hold = 'hold.' .. ARGV[1]
+            local amount = tonumber(redis.call('HGET', KEYS[1], hold))
+            if not amount then return false end
+            redis.call('HDEL', KEYS[1], hold)
+            redis.call('HINCRBY', KEYS[1], 'heldMinor', -amount)
+            return 1
+            """);
+
+    private static final LuaScript FORGET_CHARGE = new LuaScript("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then return 0 end
+            return redis.call('HDEL', KEYS[1], 'done.' .. ARGV[1])
+            """);
+
+    private static final LuaScript SET_BALANCE = new LuaScript("""
+            if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then return false end
+            redis.call('HSET', KEYS[1], 'balanceMinor', ARGV[1])
+            redis.call('PUBLISH', 'toll.tag.changes', '=' .. string.sub(KEYS[1], 5) .. '\\t' .. ARGV[1])
+            return 1
+            """);
+
+    private static final List<LuaScript> SCRIPTS =
+            List.of(GET, PUT, REFRESH, INCREMENT, RESERVE, COMMIT_HOLD, RELEASE_HOLD, FORGET_CHARGE, SET_BALANCE);
+
+    private final RedisTemplate<String, TagInfo> tagRedisTemplate;
+
+    public TagAccountStore(RedisTemplate<String, TagInfo> tagRedisTemplate) {
+        this.tagRedisTemplate = tagRedisTemplate;
+    }
+
+    /** The tag account, or null if Redis doesn't have it. */
+    public TagInfo get(String tagId) {
+        return getAll(List.of(tagId)).get(0);
+    }
+
+    /** Accounts for the given tags in order, null where missing; all looked up in one round trip. */
+    @SuppressWarnings("unchecked")
+    public List<TagInfo> getAll(List<String> tagIds) {
+        List<Object> replies = pipelined(conn -> {
+            for (String tagId : tagIds) {
+                conn.scriptingCommands().evalSha(GET.sha(), ReturnType.MULTI, 1, key(tagId));
+            }
+        });
+
+        RedisSerializer<TagInfo> legacy = (RedisSerializer<TagInfo>) tagRedisTemplate.getValueSerializer();
+        List<TagInfo> tags = new ArrayList<>(tagIds.size());
+        for (Object reply : replies) {
+            List<Object> value = (List<Object>) reply;
+            if (value == null || value.isEmpty()) {
+                tags.add(null);
+            } else if (value.get(0) instanceof List<?> fields) {
+                tags.add(fromFields((List<byte[]>) fields));
+            } else {
+                tags.add(legacy.deserialize((byte[]) value.get(0)));
+            }
+        }
+        return tags;
+    }
+
+    /** Stores the whole account, replacing any previous value; {@code ttl} of null or zero keeps it forever. */
+    public void put(TagInfo tag, Duration ttl) {
+        Map<String, String> fields = toFields(tag);
+        if (tag.getBalance() != null) {
+            fields.put(BALANCE, Long.toString(toMinor(tag.getBalance())));
+        }
+        byte[][] args = new byte[1 + fields.size() * 2][];
+        args[0] = utf8(Long.toString(ttl != null ? ttl.toSeconds() : 0));
+        int i = 1;
+        for (Map.Entry<String, String> f : fields.entrySet()) {
+            args[i++] = utf8(f.getKey());
+            args[i++] = utf8(f.getValue());
+        }
+        eval(PUT, ReturnType.INTEGER, key(tag.getTagId()), args);
+    }
+
+    /**
+     * Writes fresh vendor vehicle data into accounts that are still cached and renews their TTL, all in one
+     * round trip. The balance is left alone: a vendor snapshot is already stale by the time it is written,
+     * and would undo any charge committed meanwhile. Returns how many were still cached.
+     */
+    public int refreshAll(List<TagInfo> tags, Duration ttl) {
+        byte[] seconds = utf8(Long.toString(ttl.toSeconds()));
+        List<Object> replies = pipelined(conn -> {
+            for (TagInfo tag : tags) {
+                List<byte[]> args = new ArrayList<>();
+                args.add(seconds);
+                addField(args, "tagId", tag.getTagId());
+                addField(args, "vehicleNumber", tag.getVehicleNumber());
+                addField(args, "vehicleType", tag.getVehicleType());
+                byte[][] keysAndArgs = new byte[1 + args.size()][];
+                keysAndArgs[0] = key(tag.getTagId());
+                for (int i = 0; i < args.size(); i++) {
+                    keysAndArgs[i + 1] = args.get(i);
+                }
+                conn.scriptingCommands().evalSha(REFRESH.sha(), ReturnType.INTEGER, 1, keysAndArgs);
+            }
+        });
+        int refreshed = 0;
+        for (Object reply : replies) {
+            if (reply instanceof Long n && n == 1) refreshed++;
+        }
+        return refreshed;
+    }
+
+    /** Atomically adds {@code delta} to the balance; returns the new balance, or null if the tag isn't cached. */
+    public Double adjustBalance(String tagId, double delta) {
+        Long minor = eval(INCREMENT, ReturnType.INTEGER, key(tagId), utf8(Long.toString(toMinor(delta))));
+        if (minor == null && migrateLegacy(tagId)) {
+            minor = eval(INCREMENT, ReturnType.INTEGER, key(tagId), utf8(Long.toString(toMinor(delta))));
+        }
+        return minor != null ? minor / 100.0 : null;
+    }
+
+    /** Overwrites the balance; returns false if the tag isn't cached. */
+    public boolean setBalance(String tagId, double balance) {
+        byte[] arg = utf8(Long.toString(toMinor(balance)));
+        Long ok = eval(SET_BALANCE, ReturnType.INTEGER, key(tagId), arg);
+        if (ok == null && migrateLegacy(tagId)) {
+            ok = eval(SET_BALANCE, ReturnType.INTEGER, key(tagId), arg);
+        }
+        return ok != null;
+    }
+
+    /** A hold of {@code amount} on a tag's balance for one event. */
+    public record Hold(String tagId, UUID eventId, double amount) {
+    }
+
+    /**
+     * Places holds in order, all in one round trip. For each: true if it is held (now or by an earlier
+     * call for the same event), false if the available balance doesn't cover it, null if the tag isn't cached.
+     */
+    public List<Boolean> reserveAll(List<Hold> holds) {
+        List<Object> replies = pipelined(conn -> {
+            for (Hold hold : holds) {
+                conn.scriptingCommands().evalSha(RESERVE.sha(), ReturnType.INTEGER, 1, key(hold.tagId()),
+                        utf8(hold.eventId().toString()), utf8(Long.toString(toMinor(hold.amount()))));
+            }
+        });
+
+        List<Boolean> results = new ArrayList<>(holds.size());
+        for (int i = 0; i < holds.size(); i++) {
+            Long reply = (Long) replies.get(i);
+            Hold hold = holds.get(i);
+            if (reply == null && migrateLegacy(hold.tagId())) {
+                reply = eval(RESERVE, ReturnType.INTEGER, key(hold.tagId()), utf8(hold.eventId().toString()),
+                        utf8(Long.toString(toMinor(hold.amount()))));
+            }
+            results.add(reply != null ? reply == 1 : null);
+        }
+        return results;
+    }
+
+    /**
+     * Takes an event's held amount off the balance; returns the new balance, or null if there is no such
+     * hold. Once committed, calling it again for the event only returns the balance, until
+     * {@link #forgetCharge} is called.
+     */
+    public Double commitHold(String tagId, UUID eventId) {
+        Long minor = eval(COMMIT_HOLD, ReturnType.INTEGER, key(tagId), utf8(eventId.toString()));
+        return minor != null ? minor / 100.0 : null;
+    }
+
+    /**
+     * Charges an event once: commits its hold if it has one, otherwise takes {@code amount} off the balance.
+     * Calling it again for the event only returns the balance, until {@link #forgetCharge} is called.
+     * Returns the new balance, or null if the tag isn't cached.
+     */
+    public Double charge(String tagId, UUID eventId, double amount) {
+        byte[][] args = {utf8(eventId.toString()), utf8(Long.toString(toMinor(amount)))};
+        Long minor = eval(COMMIT_HOLD, ReturnType.INTEGER, key(tagId), args);
+        if (minor == null && migrateLegacy(tagId)) {
+            minor = eval(COMMIT_HOLD, ReturnType.INTEGER, key(tagId), args);
+        }
+        return minor != null ? minor / 100.0 : null;
+    }
+
+    /** Drops the marker a committed charge leaves, once the charge is recorded and can't be applied again. */
+    public void forgetCharge(String tagId, UUID eventId) {
+        eval(FORGET_CHARGE, ReturnType.INTEGER, key(tagId), utf8(eventId.toString()));
+    }
+
+    /** Drops a hold without charging it; returns false if there is no such hold. */
+    public boolean releaseHold(String tagId, UUID eventId) {
+        return eval(RELEASE_HOLD, ReturnType.INTEGER, key(tagId), utf8(eventId.toString())) != null;
+    }
+
+    /** Field/value pairs for everything but the balance; null attributes are left out. */
+    public static Map<String, String> toFields(TagInfo tag) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        put(fields, "tagId", tag.getTagId());
+        put(fields, "vehicleNumber", tag.getVehicleNumber());
+        put(fields, "vehicleType", tag.getVehicleType());
+        CurrentTrip trip = tag.getCurrentTrip();
+        if (trip != null) {
+            put(fields, "trip.eventId", trip.getEventId() != null ? trip.getEventId().toString() : null);
+            put(fields, "trip.plazaId", trip.getPlazaId());
+            put(fields, "trip.laneId", trip.getLaneId());
+            put(fields, "trip.timestamp", trip.getTimestamp());
+            put(fields, "trip.tollAmount", trip.getTollAmount() != null ? trip.getTollAmount().toString() : null);
+            put(fields, "trip.status", trip.getStatus());
+            put(fields, "trip.blacklistedReason", trip.getBlacklistedReason());
+        }
+        return fields;
+    }
+
+    /** Builds a tag from an HGETALL reply of alternating field names and values. */
+    public static TagInfo fromFields(List<byte[]> raw) {
+        Map<String, String> f = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < raw.size(); i += 2) {
+            f.put(new String(raw.get(i), StandardCharsets.UTF_8), new String(raw.get(i + 1), StandardCharsets.UTF_8));
+        }
+
+        TagInfo tag = new TagInfo();
+        tag.setTagId(f.get("tagId"));
+        tag.setVehicleNumber(f.get("vehicleNumber"));
+        tag.setVehicleType(f.get("vehicleType"));
+        String balance = f.get(BALANCE);
+        tag.setBalance(balance != null ? Long.parseLong(balance) / 100.0 : null);
+        if (TRIP_FIELDS.stream().anyMatch(f::containsKey)) {
+            String toll = f.get("trip.tollAmount");
+            tag.setCurrentTrip(CurrentTrip.builder()
+                    .eventId(EventIds.parseOrNull(f.get("trip.eventId")))
+                    .plazaId(f.get("trip.plazaId"))
+                    .laneId(f.get("trip.laneId"))
+                    .timestamp(f.get("trip.timestamp"))
+                    .tollAmount(toll != null ? Double.valueOf(toll) : null)
+                    .status(f.get("trip.status"))
+                    .blacklistedReason(f.get("trip.blacklistedReason"))
+                    .build());
+        }
+        return tag;
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static byte[] key(String tagId) {
+        return utf8(KEY_PREFIX + tagId);
+    }
+
+    // Rewrites a legacy string value as a hash, keeping its remaining TTL; false if there is none
+    private boolean migrateLegacy(String tagId) {
+        TagInfo legacy = get(tagId);
+        if (legacy == null) return false;
+        Long ttl = tagRedisTemplate.execute((RedisCallback<Long>) conn -> conn.keyCommands().ttl(key(tagId)));
+        put(legacy, ttl != null && ttl > 0 ? Duration.ofSeconds(ttl) : null);
+        return true;
+    }
+
+    // Scripts run by their SHA1 and are all loaded again if Redis has lost them; a NOSCRIPT reply means
+    // nothing ran, and a pipeline only ever uses one script, so the retry can't apply anything twice
+    private Long eval(LuaScript script, ReturnType type, byte[] key, byte[]... args) {
+        byte[][] keysAndArgs = new byte[1 + args.length][];
+        keysAndArgs[0] = key;
+        System.arraycopy(args, 0, keysAndArgs, 1, args.length);
+        return LuaScript.withLoaded(tagRedisTemplate, SCRIPTS, () -> tagRedisTemplate.execute(
+                (RedisCallback<Long>) conn -> conn.scriptingCommands().evalSha(script.sha(), type, 1, keysAndArgs)));
+    }
+
+    private List<Object> pipelined(Consumer<RedisConnection> commands) {
+        return LuaScript.withLoaded(tagRedisTemplate, SCRIPTS, () -> tagRedisTemplate.executePipelined(
+                (RedisCallback<Object>) conn -> {
+                    commands.accept(conn);
+                    return null;
+                }, RedisSerializer.byteArray()));
+    }
+
+    private static void addField(List<byte[]> args, String name, String value) {
+        if (value == null) return;
+        args.add(utf8(name));
+        args.add(utf8(value));
+    }
+
+    private static void put(Map<String, String> fields, String name, String value) {
+        if (value != null) fields.put(name, value);
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
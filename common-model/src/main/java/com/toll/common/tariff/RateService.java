@@ -0,0 +1,44 @@
+package com.toll.common.tariff;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.file.Path;
+
+/**
+ * Toll lookups backed by the shared {@link TariffEngine}.
+ * When {@code tariff.file} is set, the file is re-read on change and swapped in without a restart.
+ * Services register it with {@code @Import(RateService.class)}; the reload needs scheduling enabled.
+ */
+@Slf4j
+public class RateService {
+    private final TariffEngine engine = new TariffEngine();
+
+    @Value("${tariff.file:}")
+    private String tariffFile;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${tariff.reload-interval-ms:10000}")
+    public void reload() {
+        if (tariffFile.isBlank()) return;
+        try {
+            if (engine.reloadIfChanged(Path.of(tariffFile))) {
+                log.info("Loaded tariff version {} ({} rates) from {}",
+                        engine.current().version(), engine.current().size(), tariffFile);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load tariff from {}, keeping version {}: {}",
+                    tariffFile, engine.current().version(), e.getMessage());
+        }
+    }
+
+    public double getToll(String plazaId, String laneId, String vehicleType) {
+        return engine.getToll(plazaId, laneId, vehicleType);
+    }
+}
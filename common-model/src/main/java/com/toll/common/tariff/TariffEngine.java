@@ -0,0 +1,74 @@
+package com.toll.common.tariff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Holds the live {@link TariffTable} and swaps in new versions atomically: readers always see one
+ * complete snapshot, and publishing a new table never blocks or pauses lookups.
+ * Starts from the bundled {@code tariff/default-rates.csv}.
+ */
+public final class TariffEngine {
+
+    private static final String DEFAULT_RATES = "tariff/default-rates.csv";
+
+    private volatile TariffTable current;
+    private volatile long loadedModified = Long.MIN_VALUE;
+    private volatile long loadedSize = -1;
+
+    public TariffEngine() {
+        this(loadDefault());
+    }
+
+    public TariffEngine(TariffTable initial) {
+        this.current = initial;
+    }
+
+    public double getToll(String plazaId, String laneId, String vehicleType) {
+        return current.rate(plazaId, laneId, vehicleType, 0.0);
+    }
+
+    public TariffTable current() {
+        return current;
+    }
+
+    public void publish(TariffTable next) {
+        current = next;
+    }
+
+    /**
+     * Loads {@code file} if its modification time or size changed since the last successful load.
+     * Returns true when a new table was published. A file that fails to parse leaves the current
+     * table in place and is retried on the next call.
+     */
+    public synchronized boolean reloadIfChanged(Path file) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long modified = attrs.lastModifiedTime().toMillis();
+        if (modified == loadedModified && attrs.size() == loadedSize) return false;
+
+        TariffTable next;
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            next = TariffTable.parse(in, current.version() + 1);
+        }
+        publish(next);
+        loadedModified = modified;
+        loadedSize = attrs.size();
+        return true;
+    }
+
+    public static TariffTable loadDefault() {
+        try (InputStream in = TariffEngine.class.getClassLoader().getResourceAsStream(DEFAULT_RATES)) {
+            if (in == null) throw new IllegalStateException("Missing " + DEFAULT_RATES + " on classpath");
+            return TariffTable.parse(new InputStreamReader(in, StandardCharsets.UTF_8), 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
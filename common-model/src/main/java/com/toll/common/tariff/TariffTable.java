@@ -0,0 +1,130 @@
+package com.toll.common.tariff;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, pre-indexed snapshot of toll rates.
+ *
+ * Plaza, lane and vehicle type ids are interned to dense ints at build time and rates live in one
+ * flat {@code double[]} indexed by (plaza, lane, type), so a lookup is three hash probes and an
+ * array read with no string concatenation and no allocation.
+ */
+public final class TariffTable {
+
+    private final long version;
+    private final Map<String, Integer> plazas;
+    private final Map<String, Integer> lanes;
+    private final Map<String, Integer> types;
+    private final double[] rates; // NaN where no rate is defined
+    private final int size;
+
+    private TariffTable(long version, Map<String, Integer> plazas, Map<String, Integer> lanes,
+                        Map<String, Integer> types, double[] rates, int size) {
+        this.version = version;
+        this.plazas = plazas;
+        this.lanes = lanes;
+        this.types = types;
+        this.rates = rates;
+        this.size = size;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /** Number of rates defined. */
+    public int size() {
+        return size;
+    }
+
+    public double rate(String plazaId, String laneId, String vehicleType, double fallback) {
+        Integer p = plazaId != null ? plazas.get(plazaId) : null;
+        Integer l = laneId != null ? lanes.get(laneId) : null;
+        Integer t = vehicleType != null ? types.get(vehicleType) : null;
+        if (p == null || l == null || t == null) return fallback;
+        double r = rates[(p * lanes.size() + l) * types.size() + t];
+        return Double.isNaN(r) ? fallback : r;
+    }
+
+    /**
+     * Parses {@code plazaId,laneId,vehicleType,amount} lines. Blank lines and lines starting with
+     * {@code #} are ignored; malformed lines, negative amounts and duplicate keys are rejected.
+     */
+    public static TariffTable parse(Reader source, long version) throws IOException {
+        Builder builder = new Builder();
+        BufferedReader in = new BufferedReader(source);
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            String[] f = trimmed.split(",");
+            if (f.length != 4) {
+                throw new IllegalArgumentException("Line " + lineNo + ": expected plazaId,laneId,vehicleType,amount");
+            }
+            double amount;
+            try {
+                amount = Double.parseDouble(f[3].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNo + ": bad amount '" + f[3].trim() + "'");
+            }
+            try {
+                builder.rate(f[0].trim(), f[1].trim(), f[2].trim(), amount);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNo + ": " + e.getMessage());
+            }
+        }
+        return builder.build(version);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final List<String[]> keys = new ArrayList<>();
+        private final List<Double> amounts = new ArrayList<>();
+        private final Map<String, Double> seen = new HashMap<>();
+
+        public Builder rate(String plazaId, String laneId, String vehicleType, double amount) {
+            if (plazaId.isEmpty() || laneId.isEmpty() || vehicleType.isEmpty()) {
+                throw new IllegalArgumentException("plazaId, laneId and vehicleType are required");
+            }
+            if (!(amount >= 0) || Double.isInfinite(amount)) {
+                throw new IllegalArgumentException("invalid amount " + amount);
+            }
+            if (seen.put(plazaId + ':' + laneId + ':' + vehicleType, amount) != null) {
+                throw new IllegalArgumentException("duplicate rate for " + plazaId + ':' + laneId + ':' + vehicleType);
+            }
+            keys.add(new String[]{plazaId, laneId, vehicleType});
+            amounts.add(amount);
+            return this;
+        }
+
+        public TariffTable build(long version) {
+            Map<String, Integer> plazas = new HashMap<>();
+            Map<String, Integer> lanes = new HashMap<>();
+            Map<String, Integer> types = new HashMap<>();
+            for (String[] k : keys) {
+                plazas.putIfAbsent(k[0], plazas.size());
+                lanes.putIfAbsent(k[1], lanes.size());
+                types.putIfAbsent(k[2], types.size());
+            }
+            double[] rates = new double[plazas.size() * lanes.size() * types.size()];
+            Arrays.fill(rates, Double.NaN);
+            for (int i = 0; i < keys.size(); i++) {
+                String[] k = keys.get(i);
+                rates[(plazas.get(k[0]) * lanes.size() + lanes.get(k[1])) * types.size() + types.get(k[2])] = amounts.get(i);
+            }
+            return new TariffTable(version, Map.copyOf(plazas), Map.copyOf(lanes), Map.copyOf(types), rates, keys.size());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.toll.common.codec;
+
+import com.toll.common.model.ChargeStatus;
+import com.toll.common.model.CurrentTrip;
+import com.toll.common.model.Decision;
+import com.toll.common.model.OpenGateCommand;
+import com.toll.common.model.TagChargeRequest;
+import com.toll.common.model.TagChargeResponse;
+import com.toll.common.model.TagInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageCodecsTest {
+
+    private static final UUID EVENT_ID = UUID.fromString("3f2504e0-4f89-41d3-9a0c-0305e82c3301");
+
+    // Version 1 payloads of the messages below, as the codecs first wrote them. They must keep decoding.
+    private static final String TAG_INFO_V1 = "b201011f055441472d310a4b41303141423132333403434152e88e063fd341894fe004"
+            + "253f01332ce805030c9a025031024c3284d990e30c00d089020750454e44494e47";
+    private static final String CHARGE_REQUEST_V1 = "b20201ff01d341894fe004253f01332ce805030c9a055441472d310a4b413031"
+            + "41423132333403434152d08902025031024c3284d990e30c00";
+    private static final String CHARGE_RESPONSE_V1 = "b203010fd341894fe004253f01332ce805030c9a055441472d310753554343"
+            + "455353054150522d39";
+    private static final String GATE_COMMAND_V1 = "b204015fd341894fe004253f01332ce805030c9a055441472d31025031024c3204"
+            + "4f50454e86d990e30c80e59a77";
+
+    @Test
+    void roundTripsEveryMessage() {
+        assertThat(MessageCodecs.TAG_INFO.decode(MessageCodecs.TAG_INFO.encode(tagInfo()))).isEqualTo(tagInfo());
+        assertThat(MessageCodecs.CHARGE_REQUEST.decode(MessageCodecs.CHARGE_REQUEST.encode(chargeRequest())))
+                .isEqualTo(chargeRequest());
+        assertThat(MessageCodecs.CHARGE_RESPONSE.decode(MessageCodecs.CHARGE_RESPONSE.encode(chargeResponse())))
+                .isEqualTo(chargeResponse());
+        assertThat(MessageCodecs.GATE_COMMAND.decode(MessageCodecs.GATE_COMMAND.encode(gateCommand())))
+                .isEqualTo(gateCommand());
+    }
+
+    @Test
+    void decodesVersionOnePayloads() {
+        assertThat(MessageCodecs.TAG_INFO.decode(hex(TAG_INFO_V1))).isEqualTo(tagInfo());
+        assertThat(MessageCodecs.CHARGE_REQUEST.decode(hex(CHARGE_REQUEST_V1))).isEqualTo(chargeRequest());
+        assertThat(MessageCodecs.CHARGE_RESPONSE.decode(hex(CHARGE_RESPONSE_V1))).isEqualTo(chargeResponse());
+        assertThat(MessageCodecs.GATE_COMMAND.decode(hex(GATE_COMMAND_V1))).isEqualTo(gateCommand());
+    }
+
+    @Test
+    void leavesAbsentFieldsNull() {
+        TagInfo bare = TagInfo.builder().tagId("TAG-2").build();
+        assertThat(MessageCodecs.TAG_INFO.decode(MessageCodecs.TAG_INFO.encode(bare))).isEqualTo(bare);
+
+        TagChargeResponse failed = TagChargeResponse.builder().tagId("TAG-2").status(ChargeStatus.FAILED)
+                .failureReason("timeout").build();
+        assertThat(MessageCodecs.CHARGE_RESPONSE.decode(MessageCodecs.CHARGE_RESPONSE.encode(failed))).isEqualTo(failed);
+    }
+
+    @Test
+    void keepsValuesWithoutACompactForm() {
+        TagInfo odd = tagInfo();
+        odd.setBalance(0.125);
+        odd.getCurrentTrip().setTimestamp("2024-05-01 10:15:30");
+        assertThat(MessageCodecs.TAG_INFO.decode(MessageCodecs.TAG_INFO.encode(odd))).isEqualTo(odd);
+    }
+
+    @Test
+    void rejectsNewerVersionsAndOtherSchemas() {
+        byte[] future = hex(TAG_INFO_V1);
+        future[2] = 2;
+        assertThatThrownBy(() -> MessageCodecs.TAG_INFO.decode(future))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("version 2");
+
+        assertThatThrownBy(() -> MessageCodecs.TAG_INFO.decode(hex(CHARGE_REQUEST_V1)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("schema 2");
+        assertThatThrownBy(() -> MessageCodecs.TAG_INFO.decode("{\"tagId\":\"TAG-1\"}".getBytes()))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Not a binary message");
+    }
+
+    @Test
+    void findsCodecsBySchemaAndType() {
+        assertThat(MessageCodec.schemaOf(hex(GATE_COMMAND_V1))).isEqualTo(4);
+        assertThat(MessageCodec.schemaOf("{}".getBytes())).isEqualTo(-1);
+        assertThat(MessageCodecs.forSchema(3)).isSameAs(MessageCodecs.CHARGE_RESPONSE);
+        assertThat(MessageCodecs.forType(TagInfo.class)).isSameAs(MessageCodecs.TAG_INFO);
+    }
+
+    static TagInfo tagInfo() {
+        return TagInfo.builder().tagId("TAG-1").vehicleNumber("KA01AB1234").vehicleType("CAR").balance(250.5)
+                .currentTrip(CurrentTrip.builder().eventId(EVENT_ID).plazaId("P1").laneId("L2")
+                        .timestamp("2024-05-01T10:15:30Z").tollAmount(85.0).status("PENDING").build())
+                .build();
+    }
+
+    static TagChargeRequest chargeRequest() {
+        return TagChargeRequest.builder().eventId(EVENT_ID).tagId("TAG-1").vehicleNumber("KA01AB1234")
+                .vehicleType("CAR").amount(85.0).plazaId("P1").laneId("L2").timestamp("2024-05-01T10:15:30Z").build();
+    }
+
+    static TagChargeResponse chargeResponse() {
+        return TagChargeResponse.builder().eventId(EVENT_ID).tagId("TAG-1").status(ChargeStatus.SUCCESS)
+                .approvalCode("APR-9").build();
+    }
+
+    static OpenGateCommand gateCommand() {
+        return OpenGateCommand.builder().eventId(EVENT_ID).tagId("TAG-1").plazaId("P1").laneId("L2")
+                .decision(Decision.OPEN).timestamp(Instant.parse("2024-05-01T10:15:31.250Z")).build();
+    }
+
+    static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+}
@@ -0,0 +1,108 @@
+package com.toll.common.codec;
+
+import com.toll.common.model.CurrentTrip;
+import com.toll.common.model.TagInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TagBatchCodecTest {
+
+    @Test
+    void roundTripsUncompressed() {
+        List<TagInfo> tags = List.of(MessageCodecsTest.tagInfo(), TagInfo.builder().tagId("TAG-2").build());
+
+        byte[] data = TagBatchCodec.encode(tags, TagBatchCodec.Compression.NONE);
+
+        assertThat(data[2]).isEqualTo((byte) TagBatchCodec.VERSION);
+        assertThat(data[3]).isEqualTo((byte) TagBatchCodec.Compression.NONE.ordinal());
+        assertThat(TagBatchCodec.decode(data)).isEqualTo(tags);
+    }
+
+    @Test
+    void roundTripsDeflatedBatches() {
+        List<TagInfo> tags = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            TagInfo tag = MessageCodecsTest.tagInfo();
+            tag.setTagId("TAG-" + i);
+            tag.getCurrentTrip().setEventId(UUID.randomUUID());
+            tags.add(tag);
+        }
+
+        byte[] data = TagBatchCodec.encode(tags, TagBatchCodec.Compression.DEFLATE);
+
+        assertThat(data[3]).isEqualTo((byte) TagBatchCodec.Compression.DEFLATE.ordinal());
+        assertThat(TagBatchCodec.decode(data)).isEqualTo(tags);
+    }
+
+    @Test
+    void leavesSmallBatchesUncompressed() {
+        byte[] data = TagBatchCodec.encode(List.of(MessageCodecsTest.tagInfo()), TagBatchCodec.Compression.DEFLATE);
+
+        assertThat(data[3]).isEqualTo((byte) TagBatchCodec.Compression.NONE.ordinal());
+    }
+
+    @Test
+    void readsVersionOneBatchesWithTextEventIds() {
+        TagInfo expected = MessageCodecsTest.tagInfo();
+        CurrentTrip trip = expected.getCurrentTrip();
+
+        // Version 1 layout: as today, except the trip's event id is a string
+        StringDictionary dict = new StringDictionary();
+        ByteWriter record = new ByteWriter();
+        record.writeVarInt(0b11111);
+        record.writeString(expected.getTagId()).writeString(expected.getVehicleNumber());
+        record.writeVarInt(dict.code(expected.getVehicleType()));
+        CodecSupport.writeMoney(record, expected.getBalance());
+        record.writeVarInt(0b111111);
+        record.writeString(trip.getEventId().toString());
+        record.writeVarInt(dict.code(trip.getPlazaId())).writeVarInt(dict.code(trip.getLaneId()));
+        CodecSupport.writeTimestamp(record, trip.getTimestamp());
+        CodecSupport.writeMoney(record, trip.getTollAmount());
+        record.writeVarInt(dict.code(trip.getStatus()));
+
+        ByteWriter out = new ByteWriter();
+        out.writeByte('T').writeByte('B').writeByte(1).writeByte(TagBatchCodec.Compression.NONE.ordinal());
+        dict.writeTo(out);
+        out.writeVarInt(1).writeVarInt(record.size()).writeBytes(record.buffer(), 0, record.size());
+
+        assertThat(TagBatchCodec.decode(out.toByteArray())).containsExactly(expected);
+    }
+
+    @Test
+    void skipsFieldsAppendedByANewerRevision() {
+        byte[] data = TagBatchCodec.encode(List.of(TagInfo.builder().tagId("TAG-1").build(),
+                TagInfo.builder().tagId("TAG-2").build()), TagBatchCodec.Compression.NONE);
+
+        // Rewrite the first record with two trailing bytes an older reader doesn't know about
+        ByteReader in = new ByteReader(data);
+        in.position(4);
+        StringDictionary.readFrom(in);
+        in.readVarInt();
+        int lengthAt = in.position();
+        int length = in.readVarInt();
+        ByteWriter out = new ByteWriter();
+        out.writeBytes(data, 0, lengthAt).writeVarInt(length + 2).writeBytes(data, in.position(), length)
+                .writeByte(0x7F).writeByte(0x7F)
+                .writeBytes(data, in.position() + length, data.length - in.position() - length);
+
+        assertThat(TagBatchCodec.decode(out.toByteArray())).extracting(TagInfo::getTagId)
+                .containsExactly("TAG-1", "TAG-2");
+    }
+
+    @Test
+    void rejectsOtherPayloadsAndNewerVersions() {
+        assertThatThrownBy(() -> TagBatchCodec.decode("[{}]".getBytes()))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Not a tag batch");
+
+        byte[] future = TagBatchCodec.encode(List.of(), TagBatchCodec.Compression.NONE);
+        future[2] = (byte) (TagBatchCodec.VERSION + 1);
+        assertThatThrownBy(() -> TagBatchCodec.decode(future))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("version");
+    }
+}
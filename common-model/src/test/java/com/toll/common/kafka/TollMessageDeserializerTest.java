@@ -0,0 +1,83 @@
+package com.toll.common.kafka;
+
+import com.toll.common.codec.MessageCodec;
+import com.toll.common.codec.MessageCodecs;
+import com.toll.common.model.Decision;
+import com.toll.common.model.OpenGateCommand;
+import com.toll.common.model.TagChargeRequest;
+import com.toll.common.model.TagInfo;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TollMessageDeserializerTest {
+
+    private static final UUID EVENT_ID = UUID.fromString("3f2504e0-4f89-41d3-9a0c-0305e82c3301");
+
+    @Test
+    void readsJsonWrittenBeforeTheBinaryFormat() {
+        String legacy = """
+                {"tagId":"TAG-1","vehicleNumber":"KA01AB1234","vehicleType":"CAR","balance":250.5,
+                 "currentTrip":{"eventId":"3f2504e0-4f89-41d3-9a0c-0305e82c3301","plazaId":"P1","laneId":"L2",
+                                "timestamp":"2024-05-01T10:15:30Z","tollAmount":85.0,"status":"PENDING"},
+                 "retiredField":"ignored"}""";
+
+        TagInfo tag = new TollMessageDeserializer<>(TagInfo.class).deserialize("tag-events", utf8(legacy));
+
+        assertThat(tag.getTagId()).isEqualTo("TAG-1");
+        assertThat(tag.getBalance()).isEqualTo(250.5);
+        assertThat(tag.getCurrentTrip().getEventId()).isEqualTo(EVENT_ID);
+        assertThat(tag.getCurrentTrip().getTimestamp()).isEqualTo("2024-05-01T10:15:30Z");
+    }
+
+    @Test
+    void readsLegacyJsonGateCommands() {
+        String legacy = """
+                {"eventId":"3f2504e0-4f89-41d3-9a0c-0305e82c3301","tagId":"TAG-1","plazaId":"P1","laneId":"L2",
+                 "decision":"DENY","reason":"INSUFFICIENT_FUNDS","timestamp":"2024-05-01T10:15:31.250Z"}""";
+
+        OpenGateCommand cmd = new TollMessageDeserializer<>(OpenGateCommand.class).deserialize("gate", utf8(legacy));
+
+        assertThat(cmd.getDecision()).isEqualTo(Decision.DENY);
+        assertThat(cmd.getTimestamp()).isEqualTo(Instant.parse("2024-05-01T10:15:31.250Z"));
+    }
+
+    @Test
+    void decodesBinaryByItsSchema() {
+        TagChargeRequest req = TagChargeRequest.builder().eventId(EVENT_ID).tagId("TAG-1").amount(85.0).build();
+        byte[] data = new TollMessageSerializer<TagChargeRequest>(MessageCodec.Format.BINARY).serialize("charge", req);
+        assertThat(MessageCodec.schemaOf(data)).isEqualTo(MessageCodecs.CHARGE_REQUEST.schema());
+
+        TollMessageDeserializer<Object> untyped = new TollMessageDeserializer<>();
+        assertThat(untyped.deserialize("charge", data)).isEqualTo(req);
+
+        TollMessageDeserializer<TagChargeRequest> configured = new TollMessageDeserializer<>();
+        configured.configure(Map.of(TollMessageDeserializer.TYPE_CONFIG, TagChargeRequest.class.getName()), false);
+        assertThat(configured.deserialize("charge", data)).isEqualTo(req);
+    }
+
+    @Test
+    void rejectsBinaryOfAnotherType() {
+        byte[] data = MessageCodecs.CHARGE_REQUEST.encode(TagChargeRequest.builder().tagId("TAG-1").build());
+
+        assertThatThrownBy(() -> new TollMessageDeserializer<>(TagInfo.class).deserialize("tag-events", data))
+                .isInstanceOf(SerializationException.class).hasMessageContaining("schema 2");
+    }
+
+    @Test
+    void treatsEmptyPayloadsAsNull() {
+        assertThat(new TollMessageDeserializer<>(TagInfo.class).deserialize("tag-events", new byte[0])).isNull();
+        assertThat(new TollMessageDeserializer<>(TagInfo.class).deserialize("tag-events", null)).isNull();
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,170 @@
+package com.toll.common.log;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentLogTest {
+
+    private static final SegmentLog.Codec<String> UTF8 = new SegmentLog.Codec<>() {
+        @Override
+        public byte[] encode(String record) {
+            return record.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] payload) {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackWhatWasAppended() throws IOException {
+        SegmentLog<String> log = open(4096);
+
+        long bytes = log.append(List.of("a", "bb", "ccc"), true);
+        SegmentLog.Slice<String> slice = log.read(log.committed(), 10, Long.MAX_VALUE);
+
+        assertThat(bytes).isEqualTo(3 * 8 + 6);
+        assertThat(slice.items()).containsExactly("a", "bb", "ccc");
+        assertThat(slice.records()).isEqualTo(3);
+        assertThat(slice.bytes()).isEqualTo(bytes);
+        assertThat(slice.end()).isEqualTo(log.writePosition());
+        assertThat(log.hasUncommitted()).isTrue();
+    }
+
+    @Test
+    void stopsAtTheRecordAndByteLimits() throws IOException {
+        SegmentLog<String> log = open(4096);
+        log.append(List.of("a", "b", "c", "d"), false);
+
+        SegmentLog.Slice<String> first = log.read(log.committed(), 2, Long.MAX_VALUE);
+        SegmentLog.Slice<String> next = log.read(first.end(), 10, 9); // one record is 9 bytes on disk
+
+        assertThat(first.items()).containsExactly("a", "b");
+        assertThat(next.items()).containsExactly("c");
+        assertThat(log.read(next.end(), 10, Long.MAX_VALUE).items()).containsExactly("d");
+    }
+
+    @Test
+    void reopensAtTheCommittedCursor() throws IOException {
+        SegmentLog<String> log = open(4096);
+        log.append(List.of("r1", "r2", "r3", "r4", "r5"), true);
+        log.commit(log.read(log.committed(), 2, Long.MAX_VALUE).end(), true);
+
+        SegmentLog<String> reopened = new SegmentLog<>("test log", dir, 4096, UTF8);
+        SegmentLog.Backlog backlog = reopened.open();
+
+        assertThat(backlog.records()).isEqualTo(3);
+        assertThat(backlog.bytes()).isEqualTo(3 * (8 + 2));
+        assertThat(reopened.read(reopened.committed(), 10, Long.MAX_VALUE).items()).containsExactly("r3", "r4", "r5");
+    }
+
+    @Test
+    void rollsToNewSegmentsWhenFull() throws IOException {
+        SegmentLog<String> log = open(64);
+        List<String> records = records(10, 20); // 28 bytes on disk: two per segment
+
+        log.append(records, false);
+
+        assertThat(log.segmentCount()).isEqualTo(5);
+        SegmentLog.Slice<String> slice = log.read(log.committed(), 100, Long.MAX_VALUE);
+        assertThat(slice.items()).isEqualTo(records);
+        assertThat(slice.end()).isEqualTo(log.writePosition());
+
+        SegmentLog<String> reopened = new SegmentLog<>("test log", dir, 64, UTF8);
+        assertThat(reopened.open().records()).isEqualTo(10);
+        assertThat(reopened.read(reopened.committed(), 100, Long.MAX_VALUE).items()).isEqualTo(records);
+    }
+
+    @Test
+    void recyclesCommittedSegmentsAsSpares() throws IOException {
+        SegmentLog<String> log = open(64);
+        log.append(records(10, 20), false);
+
+        log.commit(log.writePosition(), false);
+
+        assertThat(log.segmentCount()).isEqualTo(1);
+        assertThat(files("spare-")).hasSize(2);
+        assertThat(files("")).hasSize(1 + 2 + 1); // tail, spares, cursor
+
+        log.append(records(4, 20), false);
+
+        assertThat(files("spare-")).isEmpty();
+        assertThat(log.read(log.committed(), 100, Long.MAX_VALUE).items()).isEqualTo(records(4, 20));
+    }
+
+    @Test
+    void skipsARecordThatFailsItsChecksum() throws IOException {
+        SegmentLog<String> log = open(4096);
+        log.append(List.of("first", "second", "third"), true);
+
+        try (RandomAccessFile segment = new RandomAccessFile(files(".seg").get(0).toFile(), "rw")) {
+            segment.seek(8 + 5 + 8); // first byte of "second"
+            segment.write('S');
+        }
+        SegmentLog.Slice<String> slice = log.read(log.committed(), 10, Long.MAX_VALUE);
+
+        assertThat(slice.items()).containsExactly("first", "third");
+        assertThat(slice.records()).isEqualTo(3);
+        assertThat(slice.end()).isEqualTo(log.writePosition());
+    }
+
+    @Test
+    void endsTheBacklogAtACorruptRecordOnReopen() throws IOException {
+        SegmentLog<String> log = open(4096);
+        log.append(List.of("first", "second", "third"), true);
+        try (RandomAccessFile segment = new RandomAccessFile(files(".seg").get(0).toFile(), "rw")) {
+            segment.seek(8 + 5 + 4); // checksum of "second"
+            segment.writeInt(0);
+        }
+
+        SegmentLog<String> reopened = new SegmentLog<>("test log", dir, 4096, UTF8);
+
+        assertThat(reopened.open().records()).isEqualTo(1);
+        assertThat(reopened.read(reopened.committed(), 10, Long.MAX_VALUE).items()).containsExactly("first");
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegment() throws IOException {
+        SegmentLog<String> log = open(64);
+
+        assertThatThrownBy(() -> log.append(List.of("x".repeat(57)), false))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("segment size");
+        assertThat(log.hasUncommitted()).isFalse();
+    }
+
+    private SegmentLog<String> open(int segmentBytes) throws IOException {
+        SegmentLog<String> log = new SegmentLog<>("test log", dir, segmentBytes, UTF8);
+        log.open();
+        return log;
+    }
+
+    private List<Path> files(String pattern) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().contains(pattern)).sorted().toList();
+        }
+    }
+
+    private static List<String> records(int count, int length) {
+        List<String> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(String.valueOf((char) ('a' + i)).repeat(length));
+        }
+        return records;
+    }
+}
@@ -1,10 +1,13 @@
 package com.toll.edge;
 
+import com.toll.common.tariff.RateService;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@Import(RateService.class)
 @EnableScheduling // Required for @Scheduled to work
 public class EdgeApplication {
     public static void main(String[] args) { SpringApplication.run(EdgeApplication.class, args); }
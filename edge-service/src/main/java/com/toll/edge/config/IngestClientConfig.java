@@ -0,0 +1,36 @@
+package com.toll.edge.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class IngestClientConfig {
+
+    @Value("${edge.upload.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${edge.upload.timeout-ms:5000}")
+    private long timeoutMs;
+
+    /**
+     * RestTemplate over a single shared JDK HttpClient, which keeps a pool of keep-alive
+     * connections to ingest so concurrent batch uploads don't pay a TCP handshake each.
+     */
+    @Bean
+    public RestTemplate ingestRestTemplate() {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+        factory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        return new RestTemplate(factory);
+    }
+}
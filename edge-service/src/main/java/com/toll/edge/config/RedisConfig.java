@@ -1,29 +1,33 @@
 package com.toll.edge.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.toll.common.codec.BinaryRedisSerializer;
+import com.toll.common.codec.BlacklistEntryRedisSerializer;
+import com.toll.common.codec.TagInfoRedisSerializer;
 import com.toll.common.model.BlacklistEntry;
 import com.toll.common.model.TagInfo;
+import com.toll.common.store.TagAccountStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 public class RedisConfig {
 
+    // Values are always readable in either format; this only picks what gets written. Stay on JSON
+    // until every edge and verify instance reads binary
+    @Value("${cache.value-format:JSON}")
+    private BinaryRedisSerializer.Format valueFormat;
+
     @Bean
     public RedisTemplate<String, TagInfo> tagRedisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, TagInfo> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-
-        Jackson2JsonRedisSerializer<TagInfo> valueSerializer =
-                new Jackson2JsonRedisSerializer<>(objectMapper, TagInfo.class);
+        TagInfoRedisSerializer valueSerializer = new TagInfoRedisSerializer(valueFormat);
 
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(valueSerializer);
@@ -34,16 +38,17 @@ public class RedisConfig {
         return template;
     }
 
+    @Bean
+    public TagAccountStore tagAccountStore(RedisTemplate<String, TagInfo> tagRedisTemplate) {
+        return new TagAccountStore(tagRedisTemplate);
+    }
+
     @Bean
     public RedisTemplate<String, BlacklistEntry> blacklistRedisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, BlacklistEntry> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-
-        Jackson2JsonRedisSerializer<BlacklistEntry> valueSerializer =
-                new Jackson2JsonRedisSerializer<>(objectMapper, BlacklistEntry.class);
+        BlacklistEntryRedisSerializer valueSerializer = new BlacklistEntryRedisSerializer(valueFormat);
 
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(valueSerializer);
@@ -53,5 +58,11 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
 
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
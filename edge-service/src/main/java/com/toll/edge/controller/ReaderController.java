@@ -1,20 +1,99 @@
 package com.toll.edge.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toll.edge.model.ReadOutcome;
 import com.toll.edge.model.TagReadRequest;
 import com.toll.edge.service.TagService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequestMapping("/reader")
 @RequiredArgsConstructor
 public class ReaderController {
     private final TagService tagService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${edge.reader.batch-chunk-size:256}")
+    private int chunkSize;
 
     @PostMapping("/simulate")
     public ResponseEntity<String> simulate(@RequestBody TagReadRequest req) {
         tagService.simulateRead(req);
         return ResponseEntity.accepted().body("ok");
     }
+
+    /**
+     * Bulk variant of {@link #simulate} for lane controllers that buffer reads.
+     * Accepts NDJSON or a JSON array and parses it incrementally: reads are processed in chunks of
+     * {@code edge.reader.batch-chunk-size} (one Redis round trip per chunk) and per-item outcomes are
+     * streamed back in request order, in the same format as the request.
+     * A malformed item yields one INVALID outcome and ends the batch.
+     */
+    @PostMapping(value = "/simulate/batch",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public void simulateBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        response.setContentType(ndjson ? MediaType.APPLICATION_NDJSON_VALUE : MediaType.APPLICATION_JSON_VALUE);
+
+        try (MappingIterator<TagReadRequest> reads = objectMapper.readerFor(TagReadRequest.class)
+                .readValues(request.getInputStream());
+             JsonGenerator out = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+
+            out.setRootValueSeparator(null);
+            if (!ndjson) out.writeStartArray();
+
+            List<TagReadRequest> chunk = new ArrayList<>(chunkSize);
+            try {
+                while (reads.hasNextValue()) {
+                    TagReadRequest req = reads.nextValue();
+                    if (req == null || req.getTagId() == null || req.getTagId().isBlank()) {
+                        process(chunk, out, ndjson);
+                        write(out, invalid(null, "tagId is required"), ndjson);
+                        continue;
+                    }
+                    chunk.add(req);
+                    if (chunk.size() >= chunkSize) {
+                        process(chunk, out, ndjson);
+                    }
+                }
+                process(chunk, out, ndjson);
+            } catch (JsonProcessingException e) {
+                process(chunk, out, ndjson);
+                write(out, invalid(null, "Malformed read: " + e.getOriginalMessage()), ndjson);
+            }
+
+            if (!ndjson) out.writeEndArray();
+        }
+    }
+
+    private void process(List<TagReadRequest> chunk, JsonGenerator out, boolean ndjson) throws IOException {
+        if (chunk.isEmpty()) return;
+        for (ReadOutcome outcome : tagService.simulateReads(chunk)) {
+            write(out, outcome, ndjson);
+        }
+        chunk.clear();
+        out.flush();
+    }
+
+    private static void write(JsonGenerator out, ReadOutcome outcome, boolean ndjson) throws IOException {
+        out.writeObject(outcome);
+        if (ndjson) out.writeRaw('\n');
+    }
+
+    private static ReadOutcome invalid(String tagId, String reason) {
+        return ReadOutcome.builder().tagId(tagId).status(ReadOutcome.INVALID).reason(reason).build();
+    }
 }
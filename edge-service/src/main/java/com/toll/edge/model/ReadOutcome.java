@@ -0,0 +1,27 @@
+package com.toll.edge.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+/** Per-read result of {@link com.toll.edge.service.TagService#simulateReads}. */
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReadOutcome {
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String MANUAL_REQUIRED = "MANUAL_REQUIRED";
+    public static final String INVALID = "INVALID";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String OFFLINE_OPEN = "OFFLINE_OPEN";
+    public static final String OFFLINE_DENY = "OFFLINE_DENY";
+
+    private String tagId;
+    private String status;   // ACCEPTED / MANUAL_REQUIRED / DUPLICATE / INVALID / OFFLINE_OPEN / OFFLINE_DENY
+    private String reason;   // blacklist reason when MANUAL_REQUIRED, parse error when INVALID, offline rule otherwise
+    private Double balance;  // balance carried with the read when ACCEPTED
+
+    @JsonIgnore
+    public boolean isManualRequired() {
+        return MANUAL_REQUIRED.equals(status) || OFFLINE_DENY.equals(status);
+    }
+}
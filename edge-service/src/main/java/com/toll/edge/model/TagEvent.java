@@ -2,10 +2,11 @@ package com.toll.edge.model;
 
 import lombok.*;
 import java.io.Serializable;
+import java.util.UUID;
 
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 public class TagEvent implements Serializable {
-    private String eventId;
+    private UUID eventId;
     private String tagId;
     private String plazaId;
     private String laneId;
@@ -0,0 +1,87 @@
+package com.toll.edge.offline;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Append-only local record of every gate decision the edge made on its own while degraded.
+ *
+ * One line per decision ({@code epochMillis,plazaId,laneId,tagId,decision,reason}) in a file per UTC day.
+ * The reads themselves reach verify-service through the outbox, flagged as decided at the edge; this
+ * journal is the plaza-side audit trail that reconciliation can be checked against.
+ */
+@Slf4j
+@Component
+public class DecisionJournal {
+
+    @Value("${edge.offline.dir:./data/offline}")
+    private String dir;
+
+    private FileChannel channel;
+    private LocalDate day;
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(Path.of(dir));
+    }
+
+    public synchronized void record(long epochMillis, String plazaId, String laneId, String tagId,
+                                    String decision, String reason) {
+        String line = epochMillis + "," + plazaId + "," + laneId + "," + tagId + "," + decision + ","
+                + (reason != null ? reason : "") + "\n";
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            FileChannel ch = channelFor(epochMillis);
+            while (bytes.hasRemaining()) {
+                ch.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal offline decision for " + tagId, e);
+        }
+    }
+
+    /** Flushes journaled decisions to disk. */
+    @Scheduled(fixedDelayString = "${edge.outbox.force-interval-ms:1000}")
+    public synchronized void force() {
+        if (channel == null) return;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            log.warn("Failed to force decision journal: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel channelFor(long epochMillis) throws IOException {
+        LocalDate today = LocalDate.ofEpochDay(Math.floorDiv(epochMillis, 86_400_000L));
+        if (channel == null || !today.equals(day)) {
+            close();
+            channel = FileChannel.open(Path.of(dir, "decisions-" + today + ".log"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            day = today;
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,218 @@
+package com.toll.edge.offline;
+
+import com.toll.common.model.Decision;
+import com.toll.common.model.TagInfo;
+import com.toll.common.store.TagAccountStore;
+import com.toll.common.tariff.RateService;
+import com.toll.edge.outbox.ReadOutbox;
+import com.toll.edge.service.BatchUploader;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets a lane keep deciding OPEN/DENY on its own while the edge has lost Redis or ingest.
+ *
+ * Decisions come from a memory-mapped {@link TagSnapshot} of the fleet that is refreshed from Redis
+ * every {@code edge.offline.sync-interval-ms}. Each sync is merged into the previous snapshot, so tags
+ * whose cache entry has expired stay known for {@code edge.offline.retention-hours}, and the file
+ * survives an edge restart during an outage. Balances are kept only as a floor in
+ * {@code edge.offline.band-unit} steps; a tag opens the gate offline when it isn't blacklisted and that
+ * floor, less what it already spent offline, covers the toll. Unknown tags are sent to the manual lane.
+ *
+ * Every offline decision is written to the {@link DecisionJournal}; the caller also queues the read
+ * in the outbox, flagged as decided at the edge, so verify-service charges it once the link returns.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OfflineDecider {
+
+    private static final String TAG_PREFIX = "TAG:";
+    private static final String BLACKLIST_PREFIX = "BLACKLIST:";
+    private static final String SNAPSHOT_FILE = "tags.snap";
+
+    private final RedisTemplate<String, TagInfo> tagRedisTemplate;
+    private final TagAccountStore tagAccountStore;
+    private final RateService rateService;
+    private final BatchUploader batchUploader;
+    private final ReadOutbox outbox;
+    private final DecisionJournal journal;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${edge.offline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${edge.offline.dir:./data/offline}")
+    private String dir;
+
+    @Value("${edge.offline.band-unit:10.0}")
+    private double bandUnit;
+
+    @Value("${edge.offline.retention-hours:72}")
+    private long retentionHours;
+
+    @Value("${edge.offline.redis-probe-interval-ms:2000}")
+    private long redisProbeIntervalMs;
+
+    @Value("${edge.blacklist.scan-count:1000}")
+    private int scanCount;
+
+    /** What the lane should do with a read decided offline. */
+    public record Verdict(Decision decision, String reason, double toll) {
+        public boolean isOpen() {
+            return decision == Decision.OPEN;
+        }
+    }
+
+    private volatile TagSnapshot snapshot = TagSnapshot.empty();
+    private volatile long redisDownUntilNanos = System.nanoTime();
+    private final Map<String, Double> spentOffline = new ConcurrentHashMap<>(); // tagId → tolls opened offline
+
+    @PostConstruct
+    public void open() {
+        Path file = Path.of(dir, SNAPSHOT_FILE);
+        try {
+            Files.createDirectories(file.getParent());
+            if (Files.exists(file)) {
+                snapshot = TagSnapshot.open(file);
+                log.info("Loaded offline tag snapshot: {} tags", snapshot.size());
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable offline tag snapshot {}: {}", file, e.getMessage());
+        }
+        Gauge.builder("edge.offline.snapshot.tags", this, d -> d.snapshot.size()).register(meterRegistry);
+        Gauge.builder("edge.offline.snapshot.age", this,
+                d -> d.snapshot.size() == 0 ? 0 : (System.currentTimeMillis() - d.snapshot.createdAtMillis()) / 1000.0)
+                .baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("edge.offline.degraded", this, d -> d.isDegraded() ? 1 : 0).register(meterRegistry);
+    }
+
+    /** True while reads should be decided locally instead of going through Redis and ingest. */
+    public boolean isDegraded() {
+        return enabled && (System.nanoTime() - redisDownUntilNanos < 0 || !batchUploader.isIngestReachable());
+    }
+
+    /** Records a failed Redis call; reads skip Redis until the next probe is due. */
+    public void markRedisDown(Exception cause) {
+        if (!enabled) return;
+        if (System.nanoTime() - redisDownUntilNanos >= 0) {
+            log.warn("Redis unavailable, deciding lanes from the offline snapshot: {}", cause.getMessage());
+        }
+        redisDownUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(redisProbeIntervalMs);
+    }
+
+    /** Decides one read from the snapshot and journals the decision. */
+    public Verdict decide(String plazaId, String laneId, String tagId, String vehicleType, long nowMillis) {
+        TagSnapshot.Entry entry = snapshot.find(tagId);
+        Verdict verdict;
+        if (entry == null) {
+            verdict = new Verdict(Decision.DENY, "OFFLINE_UNKNOWN_TAG", 0);
+        } else if (entry.blacklisted()) {
+            verdict = new Verdict(Decision.DENY, "OFFLINE_BLACKLISTED", 0);
+        } else {
+            String type = entry.vehicleType() != null ? entry.vehicleType() : vehicleType;
+            double toll = rateService.getToll(plazaId, laneId, type);
+            double spent = spentOffline.getOrDefault(tagId, 0.0);
+            if (entry.band() * bandUnit - spent >= toll) {
+                spentOffline.merge(tagId, toll, Double::sum);
+                verdict = new Verdict(Decision.OPEN, "OFFLINE_BALANCE_OK", toll);
+            } else {
+                verdict = new Verdict(Decision.DENY, "OFFLINE_LOW_BALANCE", toll);
+            }
+        }
+        journal.record(nowMillis, plazaId, laneId, tagId, verdict.decision().name(), verdict.reason());
+        meterRegistry.counter("edge.offline.decisions", "decision", verdict.decision().name()).increment();
+        return verdict;
+    }
+
+    /** Pulls the current tag cache and blacklist from Redis into a fresh snapshot file. */
+    @Scheduled(fixedDelayString = "${edge.offline.sync-interval-ms:60000}")
+    public void sync() {
+        if (!enabled || System.nanoTime() - redisDownUntilNanos < 0) return;
+        long now = System.currentTimeMillis();
+        long nowSec = now / 1000;
+        try {
+            Map<String, TagSnapshot.Entry> merged = new HashMap<>();
+            long oldest = nowSec - TimeUnit.HOURS.toSeconds(retentionHours);
+            // blacklist flags are rebuilt from scratch each sync so lifted blacklistings are cleared
+            snapshot.forEach(e -> {
+                if (e.syncedAtEpochSec() >= oldest) {
+                    merged.put(e.tagId(), new TagSnapshot.Entry(e.tagId(), e.vehicleType(), e.band(), false,
+                            e.syncedAtEpochSec()));
+                }
+            });
+
+            List<String> tagKeys = scan(TAG_PREFIX);
+            for (int i = 0; i < tagKeys.size(); i += scanCount) {
+                List<String> chunk = tagKeys.subList(i, Math.min(tagKeys.size(), i + scanCount));
+                List<String> tagIds = chunk.stream().map(k -> k.substring(TAG_PREFIX.length())).toList();
+                List<TagInfo> tags = tagAccountStore.getAll(tagIds);
+                for (int j = 0; j < tagIds.size(); j++) {
+                    TagInfo tag = tags.get(j);
+                    if (tag == null || tag.getBalance() == null) continue;
+                    String tagId = tagIds.get(j);
+                    TagSnapshot.Entry previous = merged.get(tagId);
+                    String type = tag.getVehicleType() != null ? tag.getVehicleType()
+                            : previous != null ? previous.vehicleType() : null;
+                    merged.put(tagId, new TagSnapshot.Entry(tagId, type, band(tag.getBalance()), false, nowSec));
+                }
+            }
+
+            for (String key : scan(BLACKLIST_PREFIX)) {
+                String tagId = key.substring(BLACKLIST_PREFIX.length());
+                TagSnapshot.Entry e = merged.get(tagId);
+                merged.put(tagId, new TagSnapshot.Entry(tagId, e != null ? e.vehicleType() : null,
+                        e != null ? e.band() : 0, true, nowSec));
+            }
+
+            Path file = Path.of(dir, SNAPSHOT_FILE);
+            TagSnapshot.write(file, merged.values(), now);
+            snapshot = TagSnapshot.open(file);
+            if (batchUploader.isIngestReachable() && outbox.pendingCount() == 0) {
+                spentOffline.clear(); // everything opened offline has reached verify and been charged
+            }
+            log.debug("Offline tag snapshot synced: {} tags", merged.size());
+        } catch (Exception e) {
+            log.warn("Offline tag snapshot sync failed, keeping snapshot from {}: {}",
+                    snapshot.createdAtMillis(), e.getMessage());
+        }
+    }
+
+    private int band(double balance) {
+        return (int) Math.min(TagSnapshot.MAX_BAND, Math.max(0, Math.floor(balance / bandUnit)));
+    }
+
+    private List<String> scan(String prefix) {
+        List<String> keys = new ArrayList<>();
+        tagRedisTemplate.execute((RedisCallback<Void>) conn -> {
+            ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(scanCount).build();
+            try (Cursor<byte[]> cursor = conn.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    keys.add(new String(cursor.next(), StandardCharsets.UTF_8));
+                }
+            }
+            return null;
+        });
+        return keys;
+    }
+}
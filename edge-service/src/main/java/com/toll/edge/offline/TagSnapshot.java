@@ -0,0 +1,204 @@
+package com.toll.edge.offline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Read-only, memory-mapped open-addressing table of tag id → (vehicle class, balance band, blacklist flag).
+ *
+ * File layout (little endian):
+ * <pre>
+ *   header  magic "TSNP" | version | slot count (power of two) | entry count | created at (epoch ms) | keys offset
+ *   slots   [fingerprint:8 | key offset:4 | synced at (epoch s):4 | band:2 | flags:1 | pad:5] × slot count
+ *   keys    [tag id length:2 | tag id | vehicle class length:2 | vehicle class] per entry, UTF-8
+ * </pre>
+ * A lookup hashes the tag id, probes linearly from its home slot and confirms the match against the
+ * stored tag id, so it never allocates beyond encoding the id and costs a few cache lines at most.
+ * Files are written once to a temp path and moved into place; a mapped snapshot is never modified.
+ */
+public final class TagSnapshot {
+
+    /** One tag as of its last sync; {@code band} is the balance floor in band units. */
+    public record Entry(String tagId, String vehicleType, int band, boolean blacklisted, long syncedAtEpochSec) {}
+
+    private static final int MAGIC = 0x504E5354; // "TSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    private static final int SLOT = 24;
+    private static final int FLAG_BLACKLISTED = 1;
+    public static final int MAX_BAND = 0xFFFF;
+
+    private static final TagSnapshot EMPTY = new TagSnapshot(null, 0, 0, 0, 0);
+
+    private final ByteBuffer buf;
+    private final int mask;
+    private final int entries;
+    private final long createdAtMillis;
+    private final int keysOffset;
+
+    private TagSnapshot(ByteBuffer buf, int slots, int entries, long createdAtMillis, int keysOffset) {
+        this.buf = buf;
+        this.mask = slots - 1;
+        this.entries = entries;
+        this.createdAtMillis = createdAtMillis;
+        this.keysOffset = keysOffset;
+    }
+
+    public static TagSnapshot empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    public long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    /** Maps an existing snapshot file; the mapping stays valid after the file is replaced. */
+    public static TagSnapshot open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.capacity() < HEADER || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException("Not a tag snapshot: " + file);
+            }
+            int slots = mapped.getInt(8);
+            if (Integer.bitCount(slots) != 1 || HEADER + (long) slots * SLOT > mapped.capacity()) {
+                throw new IOException("Corrupt tag snapshot: " + file);
+            }
+            return new TagSnapshot(mapped, slots, mapped.getInt(12), mapped.getLong(16), mapped.getInt(24));
+        }
+    }
+
+    /** Entry for the tag, or null if the snapshot doesn't know it. */
+    public Entry find(String tagId) {
+        int slot = slotOf(tagId.getBytes(StandardCharsets.UTF_8));
+        return slot < 0 ? null : entryAt(slot);
+    }
+
+    /** Visits every entry; used when merging a new sync into the previous snapshot. */
+    public void forEach(Consumer<Entry> action) {
+        if (buf == null) return;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (buf.getLong(HEADER + slot * SLOT) != 0) {
+                action.accept(entryAt(slot));
+            }
+        }
+    }
+
+    /** Writes the entries as a new snapshot file, replacing {@code file} atomically. */
+    public static void write(Path file, Collection<Entry> entries, long createdAtMillis) throws IOException {
+        int slots = Integer.highestOneBit(Math.max(16, entries.size() * 2 - 1)) << 1; // load factor <= 0.5
+        long keyBytes = 0;
+        for (Entry e : entries) {
+            keyBytes += 4 + utf8Length(e.tagId()) + utf8Length(e.vehicleType());
+        }
+        long total = HEADER + (long) slots * SLOT + keyBytes;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Tag snapshot too large: " + entries.size() + " entries");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        int keysOffset = HEADER + slots * SLOT;
+        out.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slots).putInt(12, entries.size())
+                .putLong(16, createdAtMillis).putInt(24, keysOffset);
+
+        int mask = slots - 1;
+        out.position(keysOffset);
+        for (Entry e : entries) {
+            byte[] id = e.tagId().getBytes(StandardCharsets.UTF_8);
+            byte[] type = e.vehicleType() != null ? e.vehicleType().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            long fp = fingerprint(id);
+            int slot = (int) fp & mask;
+            while (out.getLong(HEADER + slot * SLOT) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            int at = HEADER + slot * SLOT;
+            out.putLong(at, fp)
+                    .putInt(at + 8, out.position() - keysOffset)
+                    .putInt(at + 12, (int) e.syncedAtEpochSec())
+                    .putShort(at + 16, (short) Math.min(MAX_BAND, Math.max(0, e.band())))
+                    .put(at + 18, (byte) (e.blacklisted() ? FLAG_BLACKLISTED : 0));
+            out.putShort((short) id.length).put(id).putShort((short) type.length).put(type);
+        }
+        out.clear();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                ch.write(out);
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int slotOf(byte[] id) {
+        if (buf == null) return -1;
+        long fp = fingerprint(id);
+        int slot = (int) fp & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            int at = HEADER + slot * SLOT;
+            long stored = buf.getLong(at);
+            if (stored == 0) return -1;
+            if (stored == fp && keyEquals(keysOffset + buf.getInt(at + 8), id)) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(int at, byte[] id) {
+        if ((buf.getShort(at) & 0xFFFF) != id.length) return false;
+        for (int i = 0; i < id.length; i++) {
+            if (buf.get(at + 2 + i) != id[i]) return false;
+        }
+        return true;
+    }
+
+    private Entry entryAt(int slot) {
+        int at = HEADER + slot * SLOT;
+        int key = keysOffset + buf.getInt(at + 8);
+        int idLen = buf.getShort(key) & 0xFFFF;
+        int typeLen = buf.getShort(key + 2 + idLen) & 0xFFFF;
+        return new Entry(
+                string(key + 2, idLen),
+                typeLen == 0 ? null : string(key + 4 + idLen, typeLen),
+                buf.getShort(at + 16) & 0xFFFF,
+                (buf.get(at + 18) & FLAG_BLACKLISTED) != 0,
+                buf.getInt(at + 12) & 0xFFFFFFFFL);
+    }
+
+    private String string(int at, int len) {
+        byte[] bytes = new byte[len];
+        buf.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** FNV-1a, with 0 reserved to mark empty slots. */
+    private static long fingerprint(byte[] id) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : id) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 29; // FNV's low bits are weak; fold the high bits into the slot index
+        return h == 0 ? 1 : h;
+    }
+
+    private static int utf8Length(String s) {
+        return s == null ? 0 : s.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
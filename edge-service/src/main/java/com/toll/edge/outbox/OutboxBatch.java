@@ -0,0 +1,30 @@
+package com.toll.edge.outbox;
+
+import com.toll.common.model.TagInfo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A contiguous run of records read from the {@link ReadOutbox}.
+ * Pass it back to {@link ReadOutbox#commit(OutboxBatch)} once ingest has acknowledged it,
+ * or to {@link ReadOutbox#release(OutboxBatch)} to have it handed out again.
+ */
+@Getter
+@AllArgsConstructor
+public class OutboxBatch {
+    private final List<TagInfo> items;
+    private final long start;    // log position of the first record
+    private final long end;      // log position just past the last record
+    private final int records;   // records consumed, including any skipped as unreadable
+    private final long bytes;    // on-disk bytes consumed
+
+    public boolean isEmpty() {
+        return records == 0;
+    }
+
+    public int size() {
+        return items.size();
+    }
+}
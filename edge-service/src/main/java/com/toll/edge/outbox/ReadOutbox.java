@@ -0,0 +1,193 @@
+package com.toll.edge.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toll.common.log.SegmentLog;
+import com.toll.common.model.TagInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable, segment-based outbox for tag reads waiting to be uploaded to ingest.
+ *
+ * Reads are appended as JSON to a {@link SegmentLog} on local disk, so they survive an edge restart
+ * and only cost heap while a batch is being uploaded. Batches are handed out from a read cursor and
+ * may be acknowledged out of order; the committed cursor only moves over a contiguous run of acked
+ * batches, and segments behind it are recycled for future appends.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReadOutbox {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${edge.outbox.dir:./data/outbox}")
+    private String dir;
+
+    @Value("${edge.outbox.segment-bytes:67108864}") // 64 MB
+    private int segmentBytes;
+
+    private final AtomicLong pending = new AtomicLong();      // appended but not yet acked
+    private final AtomicLong unread = new AtomicLong();       // appended but not yet handed out
+    private final AtomicLong unreadBytes = new AtomicLong();
+    private final Object readLock = new Object();
+    private final Deque<OutboxBatch> retries = new ConcurrentLinkedDeque<>();
+    private final NavigableMap<Long, OutboxBatch> inFlight = new TreeMap<>(); // guarded by readLock
+    private final Set<Long> acked = new HashSet<>();                          // guarded by readLock
+
+    private SegmentLog<TagInfo> segmentLog;
+    private volatile long readPosition;
+    private volatile long oldestUnreadNanos;
+    private volatile Runnable appendListener = () -> { };
+
+    @PostConstruct
+    public void open() throws IOException {
+        segmentLog = new SegmentLog<>("read outbox", Paths.get(dir), segmentBytes, new SegmentLog.Codec<>() {
+            @Override
+            public byte[] encode(TagInfo tag) {
+                try {
+                    return objectMapper.writeValueAsBytes(tag);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to encode tag " + tag.getTagId(), e);
+                }
+            }
+
+            @Override
+            public TagInfo decode(byte[] payload) throws IOException {
+                return objectMapper.readValue(payload, TagInfo.class);
+            }
+        });
+        SegmentLog.Backlog backlog = segmentLog.open();
+        pending.set(backlog.records());
+        unread.set(backlog.records());
+        unreadBytes.set(backlog.bytes());
+        readPosition = segmentLog.committed();
+        oldestUnreadNanos = System.nanoTime();
+
+        log.info("Read outbox opened at {}: {} segment(s), {} pending read(s)", segmentLog.root().toAbsolutePath(),
+                segmentLog.segmentCount(), pending.get());
+    }
+
+    /** Durably queues a read for upload. */
+    public void append(TagInfo tag) {
+        long bytes = segmentLog.append(List.of(tag), false);
+        pending.incrementAndGet();
+        unreadBytes.addAndGet(bytes);
+        if (unread.getAndIncrement() == 0) {
+            oldestUnreadNanos = System.nanoTime();
+        }
+        appendListener.run();
+    }
+
+    /**
+     * Hands out the next batch of up to {@code maxRecords} records / {@code maxBytes} bytes.
+     * Batches released for retry are handed out again first, unchanged.
+     * Unreadable records are skipped and counted in {@link OutboxBatch#getRecords()}.
+     */
+    public OutboxBatch poll(int maxRecords, int maxBytes) {
+        OutboxBatch retry = retries.poll();
+        if (retry != null) {
+            unread.addAndGet(-retry.getRecords());
+            unreadBytes.addAndGet(-retry.getBytes());
+            return retry;
+        }
+        synchronized (readLock) {
+            SegmentLog.Slice<TagInfo> slice = segmentLog.read(readPosition, maxRecords, maxBytes);
+            OutboxBatch batch = new OutboxBatch(slice.items(), slice.start(), slice.end(), slice.records(), slice.bytes());
+            if (!batch.isEmpty()) {
+                readPosition = batch.getEnd();
+                inFlight.put(batch.getStart(), batch);
+                unread.addAndGet(-batch.getRecords());
+                unreadBytes.addAndGet(-batch.getBytes());
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Marks a batch as acknowledged by ingest. The committed cursor advances over every contiguous
+     * acked batch from the oldest in-flight one, then fully acked segments are recycled.
+     */
+    public void commit(OutboxBatch batch) {
+        long acknowledged = 0;
+        synchronized (readLock) {
+            acked.add(batch.getStart());
+            long committed = 0;
+            while (!inFlight.isEmpty() && acked.remove(inFlight.firstKey())) {
+                OutboxBatch done = inFlight.pollFirstEntry().getValue();
+                committed = done.getEnd();
+                acknowledged += done.getRecords();
+            }
+            if (acknowledged == 0) return;
+            segmentLog.commit(committed, false); // in order, so the cursor never moves back
+        }
+
+        long ackedRecords = acknowledged;
+        pending.updateAndGet(p -> Math.max(0, p - ackedRecords));
+    }
+
+    /** Returns a failed batch so the next {@link #poll} hands it out again. */
+    public void release(OutboxBatch batch) {
+        if (unread.getAndAdd(batch.getRecords()) == 0) {
+            oldestUnreadNanos = System.nanoTime();
+        }
+        unreadBytes.addAndGet(batch.getBytes());
+        retries.addFirst(batch);
+    }
+
+    public boolean hasRetries() {
+        return !retries.isEmpty();
+    }
+
+    /** Called on the appending thread after every append; must be cheap and non-blocking. */
+    public void setAppendListener(Runnable listener) {
+        this.appendListener = listener;
+    }
+
+    /** Reads appended but not yet acknowledged by ingest (the durable queue depth). */
+    public long pendingCount() {
+        return pending.get();
+    }
+
+    /** Reads appended but not yet handed out in a batch. */
+    public long unreadCount() {
+        return unread.get();
+    }
+
+    public long unreadBytes() {
+        return unreadBytes.get();
+    }
+
+    /** {@link System#nanoTime()} of the oldest read still waiting to be handed out. */
+    public long oldestUnreadNanos() {
+        return oldestUnreadNanos;
+    }
+
+    /** Flushes dirty pages so queued reads also survive power loss, not just a process restart. */
+    @Scheduled(fixedDelayString = "${edge.outbox.force-interval-ms:1000}")
+    public void force() {
+        if (segmentLog != null) segmentLog.force();
+    }
+
+    @PreDestroy
+    public void close() {
+        force();
+    }
+}
@@ -1,43 +1,294 @@
 package com.toll.edge.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toll.common.codec.TagBatchCodec;
 import com.toll.common.model.TagInfo;
+import com.toll.common.model.TagIngestResponse;
+import com.toll.common.model.TagIngestResult;
+import com.toll.edge.outbox.OutboxBatch;
+import com.toll.edge.outbox.ReadOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Upload engine draining the {@link ReadOutbox} to ingest.
+ *
+ * A batch is flushed as soon as the unread backlog reaches {@code edge.batch-size} records or
+ * {@code edge.batch-bytes} bytes, or once the oldest unread read has lingered {@code edge.linger-ms}.
+ * Up to {@code edge.max-in-flight} batches are uploaded concurrently; failed batches are handed back
+ * to the outbox and retried first, with exponential backoff while ingest is unreachable.
+ *
+ * Ingest reports a status per read; reads it failed to publish are re-queued on their own rather
+ * than resending the batch. A 429 from ingest is honoured via its Retry-After header and not counted as a failure.
+ *
+ * Batches go out in the compact {@link TagBatchCodec} format unless {@code edge.upload.format} is
+ * {@code json}; if ingest answers 415 the uploader falls back to JSON.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class BatchUploader {
-    private final TagService tagService;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ReadOutbox outbox;
+    private final RestTemplate ingestRestTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
 
     @Value("${edge.ingest-url}")
     private String ingestUrl;
 
-    @Value("${edge.batch-size:10}")
+    @Value("${edge.batch-size:500}")
     private int batchSize;
 
-    @Scheduled(fixedDelayString = "${edge.flush-interval-ms:5000}")
-    public void flushJob() {
-        List<TagInfo> batch = tagService.drainBatch(batchSize);
-        if (batch.isEmpty()) return;
+    @Value("${edge.batch-bytes:262144}")
+    private int batchBytes;
+
+    @Value("${edge.linger-ms:200}")
+    private long lingerMs;
+
+    @Value("${edge.max-in-flight:4}")
+    private int maxInFlight;
+
+    @Value("${edge.retry-backoff-max-ms:30000}")
+    private long maxBackoffMs;
+
+    @Value("${edge.upload.format:binary}")
+    private String format;
+
+    @Value("${edge.upload.compression:DEFLATE}")
+    private TagBatchCodec.Compression compression;
+
+    private static final long INITIAL_BACKOFF_MS = 500;
+
+    private Semaphore inFlight;
+    private ExecutorService senders;
+    private Thread dispatcher;
+    private Timer flushTimer;
+    private Counter failures;
+    private Counter resent;
+    private volatile boolean running;
+    private volatile long backoffMs;
+    private volatile long retryNotBeforeNanos;
+    private volatile boolean binary;
+    private volatile long retryAfterSeconds;
+
+    private enum UploadResult {
+        OK, FAILED, THROTTLED
+    }
+
+    /** How an upload went; on OK, {@code resend} holds reads ingest could not publish and that are worth retrying. */
+    private record Upload(UploadResult result, List<TagInfo> resend) {
+        static final Upload FAILED = new Upload(UploadResult.FAILED, List.of());
+        static final Upload THROTTLED = new Upload(UploadResult.THROTTLED, List.of());
+    }
+
+    @PostConstruct
+    public void start() {
+        binary = !"json".equalsIgnoreCase(format);
+        inFlight = new Semaphore(maxInFlight);
+        AtomicInteger n = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(maxInFlight, r -> {
+            Thread t = new Thread(r, "edge-upload-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        flushTimer = Timer.builder("edge.upload.flush.latency")
+                .description("Round trip of one batch upload to ingest")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        failures = Counter.builder("edge.upload.failures").register(meterRegistry);
+        resent = Counter.builder("edge.upload.resent").register(meterRegistry);
+        Gauge.builder("edge.outbox.pending", outbox, ReadOutbox::pendingCount)
+                .description("Reads queued on disk and not yet acknowledged by ingest")
+                .register(meterRegistry);
+        Gauge.builder("edge.outbox.unread", outbox, ReadOutbox::unreadCount).register(meterRegistry);
+        Gauge.builder("edge.upload.in-flight", this, u -> u.maxInFlight - u.inFlight.availablePermits())
+                .register(meterRegistry);
+
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "edge-upload-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        outbox.setAppendListener(this::onAppend);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        dispatcher.join(1000);
+        senders.shutdown();
+        senders.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /** False while uploads are failing and being retried with backoff. */
+    public boolean isIngestReachable() {
+        return backoffMs == 0;
+    }
+
+    // Wake the dispatcher early when a size threshold is crossed instead of waiting out the linger
+    private void onAppend() {
+        if (outbox.unreadCount() >= batchSize || outbox.unreadBytes() >= batchBytes) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    private void dispatchLoop() {
+        long lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (running) {
+            long waitNanos = nextDispatchDelayNanos(lingerNanos);
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+            if (!inFlight.tryAcquire()) {
+                LockSupport.parkNanos(this, lingerNanos); // a finishing upload unparks us
+                continue;
+            }
+            OutboxBatch batch = outbox.poll(batchSize, batchBytes);
+            if (batch.isEmpty()) {
+                inFlight.release();
+                LockSupport.parkNanos(this, lingerNanos);
+            } else if (batch.size() == 0) {
+                outbox.commit(batch); // only unreadable records, nothing to send
+                inFlight.release();
+            } else {
+                senders.execute(() -> send(batch));
+            }
+        }
+    }
+
+    private long nextDispatchDelayNanos(long lingerNanos) {
+        long now = System.nanoTime();
+        if (outbox.hasRetries()) {
+            return retryNotBeforeNanos - now;
+        }
+        long unread = outbox.unreadCount();
+        if (unread == 0) {
+            return lingerNanos;
+        }
+        if (unread >= batchSize || outbox.unreadBytes() >= batchBytes) {
+            return 0;
+        }
+        return outbox.oldestUnreadNanos() + lingerNanos - now;
+    }
+
+    private void send(OutboxBatch batch) {
+        long startedAt = System.nanoTime();
+        try {
+            Upload upload = upload(batch.getItems());
+            flushTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            if (upload.result() == UploadResult.OK) {
+                // re-queue only the reads ingest couldn't publish, before the batch is acked
+                upload.resend().forEach(outbox::append);
+                resent.increment(upload.resend().size());
+                outbox.commit(batch);
+                backoffMs = 0;
+                log.debug("Flushed {} events to ingest, {} re-queued ({} still pending)",
+                        batch.size(), upload.resend().size(), outbox.pendingCount());
+            } else if (upload.result() == UploadResult.THROTTLED) {
+                // ingest is up but busy: wait as told without counting it as an outage
+                retryNotBeforeNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(retryAfterSeconds);
+                outbox.release(batch);
+            } else {
+                failures.increment();
+                backoffMs = Math.min(maxBackoffMs, Math.max(INITIAL_BACKOFF_MS, backoffMs * 2));
+                retryNotBeforeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+                outbox.release(batch);
+            }
+        } finally {
+            inFlight.release();
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    private Upload upload(List<TagInfo> batch) {
         try {
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<List<TagInfo>> request = new HttpEntity<>(batch, headers);
-            ResponseEntity<String> resp = restTemplate.postForEntity(ingestUrl, request, String.class);
-            log.info("Flushed {} events to ingest: status {}", batch.size(), resp.getStatusCode());
+            HttpEntity<?> request;
+            if (binary) {
+                headers.setContentType(MediaType.parseMediaType(TagBatchCodec.MEDIA_TYPE));
+                request = new HttpEntity<>(TagBatchCodec.encode(batch, compression), headers);
+            } else {
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                request = new HttpEntity<>(batch, headers);
+            }
+            ResponseEntity<String> resp = ingestRestTemplate.postForEntity(ingestUrl, request, String.class);
+            if (!resp.getStatusCode().is2xxSuccessful()) {
+                log.warn("Ingest rejected batch of {} with status {}, will retry", batch.size(), resp.getStatusCode());
+                return Upload.FAILED;
+            }
+            return acknowledged(batch, resp.getBody());
+        } catch (HttpClientErrorException.UnsupportedMediaType e) {
+            log.warn("Ingest does not accept {}, falling back to JSON uploads", TagBatchCodec.MEDIA_TYPE);
+            binary = false;
+            return Upload.FAILED;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            String retryAfter = e.getResponseHeaders() != null ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null;
+            retryAfterSeconds = parseRetryAfter(retryAfter);
+            log.debug("Ingest is busy, retrying batch of {} in {}s", batch.size(), retryAfterSeconds);
+            return Upload.THROTTLED;
         } catch (Exception e) {
-            log.warn("Failed to flush batch to ingest: {}", e.getMessage());
-            // re-enqueue on failure
-            batch.forEach(b -> tagService.drainBatch(0)); // no-op; alternative: push back manually
+            log.warn("Failed to flush batch of {} to ingest, will retry: {}", batch.size(), e.getMessage());
+            return Upload.FAILED;
         }
     }
-}
 
+    // Picks the reads to resend from ingest's per-read statuses; if none got through, the whole batch is retried
+    private Upload acknowledged(List<TagInfo> batch, String body) {
+        TagIngestResponse response;
+        try {
+            response = body != null ? objectMapper.readValue(body, TagIngestResponse.class) : null;
+        } catch (JsonProcessingException e) {
+            response = null;
+        }
+        if (response == null || response.getResults() == null || response.getResults().size() != batch.size()) {
+            return new Upload(UploadResult.OK, List.of()); // no per-read statuses: the batch as a whole was accepted
+        }
+
+        List<TagInfo> resend = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            TagIngestResult result = response.getResults().get(i);
+            if (result.isRetryable()) {
+                resend.add(batch.get(i));
+            } else if (TagIngestResult.REJECTED.equals(result.getStatus())) {
+                log.warn("Ingest rejected read of {}: {}", batch.get(i).getTagId(), result.getError());
+            }
+        }
+        if (resend.size() == batch.size()) {
+            log.warn("Ingest could not publish any of {} reads, will retry: {}",
+                    batch.size(), response.getResults().get(0).getError());
+            return Upload.FAILED;
+        }
+        return new Upload(UploadResult.OK, resend);
+    }
+
+    private static long parseRetryAfter(String header) {
+        try {
+            return header != null ? Math.max(0, Long.parseLong(header.trim())) : 1;
+        } catch (NumberFormatException e) {
+            return 1; // HTTP-date form; not worth parsing for a sub-minute backoff
+        }
+    }
+}
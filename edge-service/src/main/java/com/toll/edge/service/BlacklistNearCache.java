@@ -0,0 +1,150 @@
+package com.toll.edge.service;
+
+import com.toll.common.model.BlacklistChange;
+import com.toll.common.model.BlacklistEntry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Full in-process copy of the blacklisted tag set, so lane reads don't pay a Redis lookup to learn
+ * that a tag is <em>not</em> blacklisted.
+ *
+ * Kept current by {@link BlacklistChange} messages published by verify-service, plus a periodic
+ * SCAN-based full resync that covers missed messages and entries expiring in Redis.
+ * Until the first resync succeeds (or after one fails) the cache reports itself as not synced and
+ * callers fall back to checking Redis.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlacklistNearCache implements MessageListener {
+
+    private static final String PREFIX = "BLACKLIST:";
+
+    private final RedisTemplate<String, BlacklistEntry> blacklistRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${edge.blacklist.scan-count:1000}")
+    private int scanCount;
+
+    private volatile Map<String, String> blocked = new ConcurrentHashMap<>(); // tagId → reason
+    private volatile boolean synced;
+    private volatile boolean resyncing;
+    private final Queue<BlacklistChange> changesDuringResync = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(BlacklistChange.CHANNEL));
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /** Blacklist reason if the tag is blacklisted locally, otherwise null. */
+    public String reasonFor(String tagId) {
+        return blocked.get(tagId);
+    }
+
+    /** Records a blacklisting learned from Redis directly, ahead of the pub/sub message. */
+    public void remember(String tagId, String reason) {
+        blocked.put(tagId, reason != null ? reason : "");
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        BlacklistChange change;
+        try {
+            change = BlacklistChange.parse(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed blacklist change: {}", e.getMessage());
+            return;
+        }
+        apply(blocked, change);
+        if (resyncing) {
+            changesDuringResync.add(change);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${edge.blacklist.resync-interval-ms:60000}")
+    public void resync() {
+        resyncing = true;
+        changesDuringResync.clear();
+        try {
+            List<String> keys = new ArrayList<>();
+            blacklistRedisTemplate.execute((RedisCallback<Void>) conn -> {
+                ScanOptions options = ScanOptions.scanOptions().match(PREFIX + "*").count(scanCount).build();
+                try (Cursor<byte[]> cursor = conn.keyCommands().scan(options)) {
+                    while (cursor.hasNext()) {
+                        keys.add(new String(cursor.next(), StandardCharsets.UTF_8));
+                    }
+                }
+                return null;
+            });
+
+            Map<String, String> fresh = new ConcurrentHashMap<>(Math.max(16, keys.size() * 2));
+            for (int i = 0; i < keys.size(); i += scanCount) {
+                List<String> chunk = keys.subList(i, Math.min(keys.size(), i + scanCount));
+                List<BlacklistEntry> entries = blacklistRedisTemplate.opsForValue().multiGet(chunk);
+                for (int j = 0; j < chunk.size(); j++) {
+                    BlacklistEntry entry = entries != null ? entries.get(j) : null;
+                    if (entry != null) {
+                        fresh.put(chunk.get(j).substring(PREFIX.length()),
+                                entry.getReason() != null ? entry.getReason() : "");
+                    }
+                }
+            }
+
+            // replay changes that raced with the scan, before and after the swap
+            drainChangesInto(fresh);
+            blocked = fresh;
+            drainChangesInto(fresh);
+            synced = true;
+            log.debug("Blacklist near-cache resynced: {} entries", fresh.size());
+        } catch (Exception e) {
+            synced = false;
+            log.warn("Blacklist near-cache resync failed, falling back to Redis checks: {}", e.getMessage());
+        } finally {
+            resyncing = false;
+        }
+    }
+
+    public int size() {
+        return blocked.size();
+    }
+
+    private void drainChangesInto(Map<String, String> target) {
+        BlacklistChange change;
+        while ((change = changesDuringResync.poll()) != null) {
+            apply(target, change);
+        }
+    }
+
+    private static void apply(Map<String, String> target, BlacklistChange change) {
+        switch (change.getType()) {
+            case ADDED -> target.put(change.getTagId(), change.getReason() != null ? change.getReason() : "");
+            case REMOVED -> target.remove(change.getTagId());
+            case RESET -> target.clear();
+        }
+    }
+}
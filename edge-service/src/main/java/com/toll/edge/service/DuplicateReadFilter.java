@@ -0,0 +1,110 @@
+package com.toll.edge.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses repeated reads of the same tag on the same lane within {@code edge.dedup.window-ms}.
+ * RFID readers report a tag many times while the vehicle sits under the antenna; only the first
+ * read of a passage should become a toll event.
+ *
+ * Backed by a fixed-size, 8-way set-associative table of (plaza, lane, tag, lastSeen) slots: entries
+ * older than the window are simply treated as free, and when a set is full the stalest slot is
+ * evicted. Memory is bounded by {@code edge.dedup.capacity} and a lookup allocates nothing.
+ * The window slides: a tag that keeps being reported stays suppressed until it goes quiet.
+ */
+@Component
+@RequiredArgsConstructor
+public class DuplicateReadFilter {
+
+    private static final int WAYS = 8;
+    private static final int LOCK_STRIPES = 64;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${edge.dedup.window-ms:5000}")
+    private long windowMs;
+
+    @Value("${edge.dedup.capacity:65536}")
+    private int capacity;
+
+    private String[] tagIds;
+    private String[] plazaIds;
+    private String[] laneIds;
+    private long[] seenAt;
+    private int setMask;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int sets = Integer.highestOneBit(Math.max(1, capacity / WAYS));
+        int slots = sets * WAYS;
+        tagIds = new String[slots];
+        plazaIds = new String[slots];
+        laneIds = new String[slots];
+        seenAt = new long[slots];
+        setMask = sets - 1;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        FunctionCounter.builder("edge.dedup.suppressed", suppressed, LongAdder::sum)
+                .description("Reads dropped as duplicates of a recent read on the same lane")
+                .register(meterRegistry);
+        FunctionCounter.builder("edge.dedup.passed", passed, LongAdder::sum).register(meterRegistry);
+    }
+
+    /** Returns true for the first read of a tag on a lane within the window, false for a duplicate. */
+    public boolean firstSeen(String plazaId, String laneId, String tagId, long nowMillis) {
+        if (windowMs <= 0) {
+            passed.increment();
+            return true;
+        }
+        int set = mix(Objects.hashCode(plazaId), Objects.hashCode(laneId), tagId.hashCode()) & setMask;
+        int base = set * WAYS;
+
+        synchronized (locks[set & (LOCK_STRIPES - 1)]) {
+            int victim = base;
+            for (int i = base; i < base + WAYS; i++) {
+                if (tagIds[i] != null && nowMillis - seenAt[i] < windowMs
+                        && tagIds[i].equals(tagId)
+                        && Objects.equals(laneIds[i], laneId)
+                        && Objects.equals(plazaIds[i], plazaId)) {
+                    seenAt[i] = nowMillis;
+                    suppressed.increment();
+                    return false;
+                }
+                if (seenAt[i] < seenAt[victim]) {
+                    victim = i;
+                }
+            }
+            tagIds[victim] = tagId;
+            plazaIds[victim] = plazaId;
+            laneIds[victim] = laneId;
+            seenAt[victim] = nowMillis;
+        }
+        passed.increment();
+        return true;
+    }
+
+    public long suppressedCount() {
+        return suppressed.sum();
+    }
+
+    private static int mix(int plaza, int lane, int tag) {
+        int h = tag * 0x9E3779B9 + lane * 31 + plaza;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
@@ -0,0 +1,91 @@
+package com.toll.edge.service;
+
+import com.toll.common.model.BlacklistEntry;
+import com.toll.common.model.TagInfo;
+import com.toll.common.store.TagAccountStore;
+import com.toll.common.store.LuaScript;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs {@code scripts/tag-read.lua} for one or more reads: blacklist check, tag lookup and the
+ * cache write happen server-side, and all reads of a batch share one pipelined round trip.
+ * Tags are written in the {@link TagAccountStore} hash layout.
+ */
+@Component
+@RequiredArgsConstructor
+public class TagReadScript {
+
+    private final RedisTemplate<String, TagInfo> tagRedisTemplate;
+    private final RedisTemplate<String, BlacklistEntry> blacklistRedisTemplate;
+
+    private LuaScript script;
+
+    /** Outcome of one read: the blacklist entry if blocked, otherwise the balance kept from cache (null if new). */
+    public record Result(BlacklistEntry blocked, Double balance) {
+    }
+
+    @PostConstruct
+    public void load() {
+        script = LuaScript.fromClasspath("scripts/tag-read.lua");
+    }
+
+    /**
+     * @param checkBlacklist false when the caller has already checked a synced blacklist near-cache,
+     *                       letting the script skip its BLACKLIST: lookup
+     */
+    public List<Result> run(List<TagInfo> reads, long ttlSeconds, boolean checkBlacklist) {
+        return LuaScript.withLoaded(tagRedisTemplate, List.of(script),
+                () -> pipeline(reads, ttlSeconds, checkBlacklist));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Result> pipeline(List<TagInfo> reads, long ttlSeconds, boolean checkBlacklist) {
+        byte[] ttl = utf8(Long.toString(ttlSeconds));
+        byte[] check = utf8(checkBlacklist ? "1" : "0");
+
+        List<Object> replies = tagRedisTemplate.executePipelined((RedisCallback<Object>) conn -> {
+            for (TagInfo tag : reads) {
+                Map<String, String> fields = TagAccountStore.toFields(tag);
+                byte[][] keysAndArgs = new byte[5 + fields.size() * 2][];
+                keysAndArgs[0] = utf8("BLACKLIST:" + tag.getTagId());
+                keysAndArgs[1] = TagAccountStore.key(tag.getTagId());
+                keysAndArgs[2] = ttl;
+                keysAndArgs[3] = check;
+                keysAndArgs[4] = utf8(Long.toString(TagAccountStore.toMinor(tag.getBalance())));
+                int i = 5;
+                for (Map.Entry<String, String> f : fields.entrySet()) {
+                    keysAndArgs[i++] = utf8(f.getKey());
+                    keysAndArgs[i++] = utf8(f.getValue());
+                }
+                conn.scriptingCommands().evalSha(script.sha(), ReturnType.MULTI, 2, keysAndArgs);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+
+        List<Result> results = new ArrayList<>(replies.size());
+        for (Object reply : replies) {
+            List<Object> fields = (List<Object>) reply;
+            byte[] blocked = (byte[]) fields.get(0);
+            byte[] balance = fields.size() > 1 ? (byte[]) fields.get(1) : null;
+            results.add(new Result(
+                    blocked != null ? (BlacklistEntry) blacklistRedisTemplate.getValueSerializer().deserialize(blocked) : null,
+                    balance != null ? Long.parseLong(new String(balance, StandardCharsets.UTF_8)) / 100.0 : null));
+        }
+        return results;
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,83 +1,164 @@
 package com.toll.edge.service;
 
-import com.toll.common.model.BlacklistEntry;
+import com.toll.common.id.EventIds;
 import com.toll.common.model.CurrentTrip;
 import com.toll.common.model.TagInfo;
 import com.toll.edge.exception.ManualInterventionRequiredException;
 import com.toll.edge.model.*;
+import com.toll.edge.offline.OfflineDecider;
+import com.toll.edge.outbox.ReadOutbox;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import java.time.Instant;
-import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TagService {
-    private final RedisTemplate<String, TagInfo> tagRedisTemplate;
-    private final RedisTemplate<String, BlacklistEntry> blacklistRedisTemplate;
-    private final Queue<TagInfo> batchQueue = new ConcurrentLinkedQueue<>();
+    private static final double DEFAULT_BALANCE = 500.0;
+
+    private final TagReadScript tagReadScript;
+    private final BlacklistNearCache blacklistNearCache;
+    private final DuplicateReadFilter duplicateReadFilter;
+    private final ReadOutbox outbox;
+    private final OfflineDecider offlineDecider;
     // inject TTL (minutes) from application.yml
     @Value("${cache.ttl-minutes:5}")
     private long cacheTtlMinutes;
 
     public void simulateRead(TagReadRequest req) {
+        ReadOutcome outcome = simulateReads(List.of(req)).get(0);
 
-        // Blacklist check FIRST
-        String blacklistKey = "BLACKLIST:" + req.getTagId();
-        BlacklistEntry blocked = blacklistRedisTemplate.opsForValue().get(blacklistKey);
-
-        if (blocked != null) {
-            log.warn("BLOCKED — Tag {} denied. Reason={}", req.getTagId(), blocked.getReason());
-
+        if (outcome.isManualRequired()) {
             throw new ManualInterventionRequiredException(
                     req.getTagId(),
-                    blocked.getReason(),
+                    outcome.getReason(),
                     "Please direct vehicle to manual lane for fee collection."
             );
         }
+    }
 
-        // TRY TO FETCH EXISTING TAG FROM REDIS
-        String redisKey = "TAG:" + req.getTagId();
-        TagInfo existing = tagRedisTemplate.opsForValue().get(redisKey);
+    /**
+     * Processes several reads with a single Redis round trip: the blacklist check, tag lookup and
+     * cache write for every read run server-side in one pipelined batch of tag-read scripts.
+     * Tags found in the blacklist near-cache are rejected without touching Redis, and once the
+     * near-cache is synced the script skips its own blacklist lookup. Repeat reads of a tag on the
+     * same lane within the dedup window are dropped before reaching Redis or the outbox.
+     * Blacklisted reads are reported as MANUAL_REQUIRED instead of throwing.
+     * While Redis or ingest is unreachable (or if the Redis call fails) reads are decided locally by the
+     * {@link OfflineDecider} and queued as OFFLINE_OPEN / OFFLINE_DENY for verify-service to reconcile.
+     */
+    public List<ReadOutcome> simulateReads(List<TagReadRequest> reqs) {
+        ReadOutcome[] outcomes = new ReadOutcome[reqs.size()];
+        List<TagInfo> reads = new ArrayList<>(reqs.size());
+        List<Integer> readIndex = new ArrayList<>(reqs.size());
+        long now = System.currentTimeMillis();
+        boolean offline = offlineDecider.isDegraded();
+        for (int i = 0; i < reqs.size(); i++) {
+            TagReadRequest req = reqs.get(i);
+            String blockedReason = blacklistNearCache.reasonFor(req.getTagId());
+            if (blockedReason != null) {
+                outcomes[i] = manualRequired(req.getTagId(), blockedReason);
+                continue;
+            }
+            if (!duplicateReadFilter.firstSeen(req.getPlazaId(), req.getLaneId(), req.getTagId(), now)) {
+                log.debug("Suppressed duplicate read of {} on {}:{}", req.getTagId(), req.getPlazaId(), req.getLaneId());
+                outcomes[i] = ReadOutcome.builder().tagId(req.getTagId()).status(ReadOutcome.DUPLICATE).build();
+                continue;
+            }
 
-        double balance = existing != null ? existing.getBalance() : 500.0; // Keep existing balance
+            CurrentTrip trip = CurrentTrip.builder()
+                    .eventId(EventIds.next()) // the read's identity from here to payment
+                    .plazaId(req.getPlazaId())
+                    .laneId(req.getLaneId())
+                    .timestamp(Instant.now().toString())
+                    .status("PENDING")
+                    .build();
 
-        CurrentTrip trip = CurrentTrip.builder()
-                .plazaId(req.getPlazaId())
-                .laneId(req.getLaneId())
-                .timestamp(Instant.now().toString())
-                .status("PENDING")
-                .build();
+            reads.add(TagInfo.builder()
+                    .tagId(req.getTagId())
+                    .vehicleNumber(req.getVehicleNumber())
+                    .vehicleType(req.getVehicleType())
+                    .balance(DEFAULT_BALANCE) // replaced server-side by the cached balance, if any
+                    .currentTrip(trip)
+                    .build());
+            readIndex.add(i);
+        }
 
-        TagInfo tag = TagInfo.builder()
-                .tagId(req.getTagId())
-                .vehicleNumber(req.getVehicleNumber())
-                .vehicleType(req.getVehicleType())
-                .balance(balance) // Correct balance retained
-                .currentTrip(trip)
-                .build();
+        List<TagReadScript.Result> results = List.of();
+        if (!reads.isEmpty() && !offline) {
+            try {
+                results = tagReadScript.run(
+                        reads, TimeUnit.MINUTES.toSeconds(cacheTtlMinutes), !blacklistNearCache.isSynced());
+            } catch (DataAccessException e) {
+                offlineDecider.markRedisDown(e);
+                offline = true;
+            }
+        }
+        if (offline) {
+            for (int i = 0; i < reads.size(); i++) {
+                outcomes[readIndex.get(i)] = decideOffline(reads.get(i), now);
+            }
+            return Arrays.asList(outcomes);
+        }
 
-        tagRedisTemplate.opsForValue().set(redisKey, tag, cacheTtlMinutes, TimeUnit.MINUTES);
+        for (int i = 0; i < reads.size(); i++) {
+            TagInfo tag = reads.get(i);
+            TagReadScript.Result result = results.get(i);
 
-        batchQueue.add(tag);
+            if (result.blocked() != null) {
+                blacklistNearCache.remember(tag.getTagId(), result.blocked().getReason());
+                outcomes[readIndex.get(i)] = manualRequired(tag.getTagId(), result.blocked().getReason());
+                continue;
+            }
 
-        log.info("📡 Simulated read for {} (balance={}, status={}) → sent to ingest",
-                tag.getTagId(), balance, trip.getStatus());
-    }
+            if (result.balance() != null) {
+                tag.setBalance(result.balance()); // Keep existing balance
+            }
+            outbox.append(tag);
 
-    public List<TagInfo> drainBatch(int maxBatch) {
-        List<TagInfo> out = new ArrayList<>();
-        for (int i = 0; i < maxBatch; i++) {
-            TagInfo t = batchQueue.poll();
-            if (t == null) break;
-            out.add(t);
+            log.info("📡 Simulated read for {} (balance={}, status={}) → sent to ingest",
+                    tag.getTagId(), tag.getBalance(), tag.getCurrentTrip().getStatus());
+            outcomes[readIndex.get(i)] = ReadOutcome.builder()
+                    .tagId(tag.getTagId())
+                    .status(ReadOutcome.ACCEPTED)
+                    .balance(tag.getBalance())
+                    .build();
         }
-        return out;
+        return Arrays.asList(outcomes);
+    }
+
+    private ReadOutcome decideOffline(TagInfo tag, long nowMillis) {
+        CurrentTrip trip = tag.getCurrentTrip();
+        OfflineDecider.Verdict verdict = offlineDecider.decide(
+                trip.getPlazaId(), trip.getLaneId(), tag.getTagId(), tag.getVehicleType(), nowMillis);
+        trip.setStatus(verdict.isOpen() ? CurrentTrip.OFFLINE_OPEN : CurrentTrip.OFFLINE_DENY);
+        trip.setBlacklistedReason(verdict.isOpen() ? null : verdict.reason());
+        tag.setBalance(null); // unknown offline; verify uses its own record of the balance
+        outbox.append(tag);
+
+        log.info("Offline {} for {} on {}:{} ({})", verdict.decision(), tag.getTagId(),
+                trip.getPlazaId(), trip.getLaneId(), verdict.reason());
+        return ReadOutcome.builder()
+                .tagId(tag.getTagId())
+                .status(verdict.isOpen() ? ReadOutcome.OFFLINE_OPEN : ReadOutcome.OFFLINE_DENY)
+                .reason(verdict.reason())
+                .build();
+    }
+
+    private ReadOutcome manualRequired(String tagId, String reason) {
+        log.warn("BLOCKED — Tag {} denied. Reason={}", tagId, reason);
+        return ReadOutcome.builder()
+                .tagId(tagId)
+                .status(ReadOutcome.MANUAL_REQUIRED)
+                .reason(reason)
+                .build();
     }
 }
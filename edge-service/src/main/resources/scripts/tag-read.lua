@@ -0,0 +1,59 @@
+-- Lane read in a single round trip: blacklist check, tag lookup and cache write.
+-- KEYS[1] = BLACKLIST:<tagId>
+-- KEYS[2] = TAG:<tagId> (a hash, see TagAccountStore; legacy string values are converted)
+-- ARGV[1] = cache TTL in seconds
+-- ARGV[2] = '1' to check the blacklist, '0' when the caller's near-cache already did
+-- ARGV[3] = balance in minor units for tags not yet cached
+-- ARGV[4..] = field/value pairs of this read, without the balance
+-- Returns { blacklist entry | nil, retained balance in minor units | nil }; nothing is written for
+-- blacklisted tags.
+--
+-- Legacy TagInfo strings are either JSON or the binary TagInfoRedisSerializer layout (first byte 0xB1,
+-- flags at byte 4 with bit 0 = balance present, balance as a little-endian double at bytes 5-12).
+
+local BINARY = 0xB1
+local TRIP_FIELDS = { 'trip.eventId', 'trip.plazaId', 'trip.laneId', 'trip.timestamp', 'trip.tollAmount',
+                      'trip.status', 'trip.blacklistedReason' }
+
+local function legacy_balance(v)
+    if string.byte(v, 1) == BINARY then
+        if #v >= 12 and bit.band(string.byte(v, 4), 1) == 1 then
+            return (struct.unpack('<d', v, 5))
+        end
+        return nil
+    end
+    local ok, old = pcall(cjson.decode, v)
+    if ok and type(old) == 'table' and type(old.balance) == 'number' then
+        return old.balance
+    end
+    return nil
+end
+
+if ARGV[2] ~= '0' then
+    local blocked = redis.call('GET', KEYS[1])
+    if blocked then
+        return { blocked, false }
+    end
+end
+
+local balance = false
+local kind = redis.call('TYPE', KEYS[2]).ok
+if kind == 'hash' then
+    balance = redis.call('HGET', KEYS[2], 'balanceMinor') or false
+    redis.call('HDEL', KEYS[2], unpack(TRIP_FIELDS))
+elseif kind == 'string' then
+    local old = legacy_balance(redis.call('GET', KEYS[2]))
+    if old then
+        balance = string.format('%d', math.floor(old * 100 + 0.5))
+    end
+    redis.call('DEL', KEYS[2])
+end
+
+redis.call('HSET', KEYS[2], 'balanceMinor', balance or ARGV[3], unpack(ARGV, 4))
+redis.call('EXPIRE', KEYS[2], ARGV[1])
+-- An existing hash keeps its account (only trip fields change); anything else is a new account for
+-- in-memory copies elsewhere (see TagChange)
+if kind ~= 'hash' then
+    redis.call('PUBLISH', 'toll.tag.changes', '-' .. string.sub(KEYS[2], 5))
+end
+return { false, balance }
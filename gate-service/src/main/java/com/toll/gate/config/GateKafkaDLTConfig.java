@@ -1,5 +1,6 @@
 package com.toll.gate.config;
 
+import com.toll.common.kafka.TollMessageSerializer;
 import com.toll.common.model.OpenGateCommand;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.TopicPartition;
@@ -23,14 +24,15 @@ public class GateKafkaDLTConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrap;
 
-    // Producer for sending failed messages to DLT
+    // Producer for sending failed messages to DLT; dead letters are kept as JSON so they can be inspected
     @Bean
     public ProducerFactory<Object, Object> gateDLTProducerFactory() {
         return new DefaultKafkaProducerFactory<>(
                 Map.of(
                         ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap,
                         ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
-                        ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, org.springframework.kafka.support.serializer.JsonSerializer.class
+                        ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, TollMessageSerializer.class,
+                        TollMessageSerializer.FORMAT_CONFIG, "JSON"
                 )
         );
     }
@@ -1,8 +1,12 @@
 package com.toll.gate.config;
 
+import com.toll.common.codec.MessageCodec;
+import com.toll.common.kafka.TollMessageDeserializer;
+import com.toll.common.kafka.TollMessageSerializer;
 import com.toll.common.model.OpenGateCommand;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -18,6 +22,9 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrap;
 
+    @Value("${gate.value-format:JSON}")
+    private MessageCodec.Format valueFormat;
+
     @Bean
     public ConsumerFactory<String, OpenGateCommand> gateCommandConsumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -25,15 +32,12 @@ public class KafkaConfig {
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "gate-service-group");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
 
-        // Use ErrorHandlingDeserializer delegating to JsonDeserializer
+        // Use ErrorHandlingDeserializer delegating to TollMessageDeserializer (binary or JSON)
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
                 org.springframework.kafka.support.serializer.ErrorHandlingDeserializer.class);
 
-        props.put("spring.deserializer.value.delegate.class",
-                "org.springframework.kafka.support.serializer.JsonDeserializer");
-
-        props.put("spring.json.trusted.packages", "*");
-        props.put("spring.json.value.default.type", OpenGateCommand.class.getName());
+        props.put("spring.deserializer.value.delegate.class", TollMessageDeserializer.class);
+        props.put(TollMessageDeserializer.TYPE_CONFIG, OpenGateCommand.class);
 
         return new DefaultKafkaConsumerFactory<>(props);
     }
@@ -42,11 +46,8 @@ public class KafkaConfig {
     public ProducerFactory<String, OpenGateCommand> gateCommandProducerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(org.apache.kafka.clients.producer.ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
-        props.put(org.apache.kafka.clients.producer.ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG,
-                org.apache.kafka.common.serialization.StringSerializer.class);
-        props.put(org.apache.kafka.clients.producer.ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-                org.springframework.kafka.support.serializer.JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(props);
+        return new DefaultKafkaProducerFactory<>(
+                props, new StringSerializer(), new TollMessageSerializer<>(valueFormat));
     }
 
     @Bean
@@ -4,6 +4,7 @@ import com.toll.common.model.Decision;
 import lombok.*;
 
 import java.time.Instant;
+import java.util.UUID;
 
 /**
  * Read model for queries / dashboard.
@@ -15,7 +16,7 @@ import java.time.Instant;
 public class GateState {
     private String plazaId;
     private String laneId;
-    private String lastEventId;
+    private UUID lastEventId;
     private Decision lastDecision;
     private String lastReason;
     private Instant lastUpdatedAt;
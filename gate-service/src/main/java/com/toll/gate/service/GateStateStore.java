@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -19,13 +20,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public class GateStateStore {
 
     private final Map<String, GateState> laneState = new ConcurrentHashMap<>();
-    private final Map<String, Boolean> processed = new ConcurrentHashMap<>();
+    private final Map<UUID, Boolean> processed = new ConcurrentHashMap<>();
 
-    public boolean isProcessed(String eventId) {
+    public boolean isProcessed(UUID eventId) {
         return processed.containsKey(eventId);
     }
 
-    public void markProcessed(String eventId) {
+    public void markProcessed(UUID eventId) {
         processed.put(eventId, true);
     }
 
@@ -1,8 +1,14 @@
 package com.toll.ingest;
 
+import com.toll.common.tariff.RateService;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
 @SpringBootApplication
+@Import(RateService.class)
+@EnableScheduling
 public class IngestApplication {
     public static void main(String[] args) { SpringApplication.run(IngestApplication.class, args); }
 }
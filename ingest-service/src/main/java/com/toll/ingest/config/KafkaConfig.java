@@ -1,32 +1,78 @@
 package com.toll.ingest.config;
 
+import com.toll.common.codec.MessageCodec;
+import com.toll.common.kafka.TollMessageSerializer;
 import com.toll.common.model.TagInfo;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.kafka.core.*;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Producer tuned for throughput: records are batched per partition for up to {@code linger-ms} and
+ * compressed per batch, and idempotence keeps the producer's own retries from duplicating or
+ * reordering records. {@code max-block-ms} is kept short so a full buffer surfaces as backpressure
+ * instead of parking HTTP threads. Kafka client metrics are bound to Micrometer. Values are written
+ * with {@link TollMessageSerializer} in {@code value-format}.
+ */
 @Configuration
 public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrap;
 
+    @Value("${ingest.producer.acks:all}")
+    private String acks;
+
+    @Value("${ingest.producer.idempotence:true}")
+    private boolean idempotence;
+
+    @Value("${ingest.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${ingest.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${ingest.producer.compression:lz4}")
+    private String compression;
+
+    @Value("${ingest.producer.buffer-memory:67108864}")
+    private long bufferMemory;
+
+    @Value("${ingest.producer.max-block-ms:500}")
+    private long maxBlockMs;
+
+    @Value("${ingest.producer.delivery-timeout-ms:120000}")
+    private int deliveryTimeoutMs;
+
+    @Value("${ingest.producer.value-format:JSON}")
+    private MessageCodec.Format valueFormat;
+
     @Bean
-    public ProducerFactory<String, TagInfo> producerFactory() {
+    public ProducerFactory<String, TagInfo> producerFactory(MeterRegistry meterRegistry) {
         Map<String,Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(props);
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5); // highest value idempotence allows
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+        props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+
+        DefaultKafkaProducerFactory<String, TagInfo> factory = new DefaultKafkaProducerFactory<>(
+                props, new StringSerializer(), new TollMessageSerializer<>(valueFormat));
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, TagInfo> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, TagInfo> kafkaTemplate(ProducerFactory<String, TagInfo> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 }
-
@@ -1,12 +1,24 @@
 package com.toll.ingest.controller;
 
+import com.toll.common.codec.TagBatchCodec;
 import com.toll.common.model.TagInfo;
+import com.toll.common.model.TagIngestResponse;
+import com.toll.common.model.TagIngestResult;
 import com.toll.ingest.service.IngestService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/ingest")
@@ -15,9 +27,74 @@ public class IngestController {
 
     private final IngestService ingestService;
 
+    @Value("${ingest.ack-timeout-ms:4000}")
+    private long ackTimeoutMs;
+
+    /**
+     * Publishes the batch and replies once every read has been acknowledged by Kafka, has failed, or
+     * the {@code ingest.ack-timeout-ms} deadline has passed, with one {@link TagIngestResult} per read.
+     * The servlet thread is released while the sends are in flight.
+     */
     @PostMapping("/tags")
-    public ResponseEntity<String> ingestTags(@RequestBody List<TagInfo> tags) {
-        ingestService.publishTags(tags);
-        return ResponseEntity.accepted().body("Published " + tags.size() + " tag(s) to Kafka");
+    public DeferredResult<ResponseEntity<TagIngestResponse>> ingestTags(@RequestBody List<TagInfo> tags) {
+        List<CompletableFuture<TagIngestResult>> sends = ingestService.publishTags(tags);
+
+        DeferredResult<ResponseEntity<TagIngestResponse>> deferred = new DeferredResult<>(ackTimeoutMs);
+        deferred.onTimeout(() -> deferred.setResult(ResponseEntity.ok(collect(sends))));
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, ex) -> deferred.setResult(ResponseEntity.ok(collect(sends))));
+        return deferred;
+    }
+
+    /**
+     * Same as {@link #ingestTags} for batches sent in the compact binary format by edge.
+     * JSON stays available on the same path for debugging.
+     */
+    @PostMapping(value = "/tags", consumes = TagBatchCodec.MEDIA_TYPE)
+    public DeferredResult<ResponseEntity<TagIngestResponse>> ingestTagBatch(@RequestBody byte[] body) {
+        List<TagInfo> tags;
+        try {
+            tags = TagBatchCodec.decode(body);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed tag batch: " + e.getMessage());
+        }
+        return ingestTags(tags);
+    }
+
+    /**
+     * Streams newline-delimited JSON reads into Kafka as they are parsed instead of binding the whole
+     * body, so a plaza can upload its entire backlog in one request without the service's heap growing
+     * with it. Reading is paced by the in-flight publish budget. Once the body is consumed the reply
+     * follows the same deadline as {@link #ingestTags}, but lists only the reads that weren't published.
+     */
+    @PostMapping(value = "/tags", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public DeferredResult<ResponseEntity<TagIngestResponse>> ingestTagStream(InputStream body) throws IOException {
+        IngestService.StreamIngest stream = ingestService.publishStream(body);
+
+        DeferredResult<ResponseEntity<TagIngestResponse>> deferred = new DeferredResult<>(ackTimeoutMs);
+        deferred.onTimeout(() -> deferred.setResult(ResponseEntity.ok(stream.collect())));
+        stream.drained().whenComplete((ignored, ex) -> deferred.setResult(ResponseEntity.ok(stream.collect())));
+        return deferred;
+    }
+
+    // Sends still outstanding at the deadline are reported as TIMEOUT
+    private static TagIngestResponse collect(List<CompletableFuture<TagIngestResult>> sends) {
+        List<TagIngestResult> results = new ArrayList<>(sends.size());
+        int published = 0;
+        for (CompletableFuture<TagIngestResult> send : sends) {
+            TagIngestResult result = send.getNow(null);
+            if (result == null) {
+                result = TagIngestResult.builder().status(TagIngestResult.TIMEOUT).error("No Kafka ack before deadline").build();
+            }
+            if (TagIngestResult.PUBLISHED.equals(result.getStatus())) {
+                published++;
+            }
+            results.add(result);
+        }
+        return TagIngestResponse.builder()
+                .published(published)
+                .failed(results.size() - published)
+                .results(results)
+                .build();
     }
 }
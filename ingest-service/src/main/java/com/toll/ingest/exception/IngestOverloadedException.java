@@ -0,0 +1,14 @@
+package com.toll.ingest.exception;
+
+import lombok.Getter;
+
+/** Thrown when accepting a batch would exceed the in-flight publish budget; the caller should retry later. */
+@Getter
+public class IngestOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public IngestOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
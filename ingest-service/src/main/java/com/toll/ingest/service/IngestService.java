@@ -1,14 +1,38 @@
 package com.toll.ingest.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toll.common.id.EventIds;
 import com.toll.common.model.TagInfo;
+import com.toll.common.model.TagIngestResponse;
+import com.toll.common.model.TagIngestResult;
+import com.toll.common.tariff.RateService;
+import com.toll.ingest.exception.IngestOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.KafkaException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -17,49 +41,277 @@ public class IngestService {
 
     private final KafkaTemplate<String, TagInfo> kafkaTemplate;
     private final RateService rateService;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
 
     @Value("${ingest.topic:toll.tag.event}")
     private String topic;
 
+    @Value("${ingest.max-in-flight:20000}")
+    private int maxInFlight;
+
+    @Value("${ingest.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Value("${ingest.stream.permit-wait-ms:2000}")
+    private long streamPermitWaitMs;
+
+    private Semaphore permits;
+    private Counter rejected;
+    private Counter failures;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxInFlight);
+        Gauge.builder("ingest.publish.in-flight", this, s -> s.maxInFlight - s.permits.availablePermits())
+                .register(meterRegistry);
+        rejected = Counter.builder("ingest.publish.rejected").register(meterRegistry);
+        failures = Counter.builder("ingest.publish.failures").register(meterRegistry);
+    }
+
     /**
      * Enrich TagInfo and publish to Kafka.
      * - Computes toll based on plaza + lane + vehicle type
-     * - Generates eventId if missing
+     * - Generates a time-ordered eventId if the edge didn't send one
      * - Publishes one message per tag event
+     *
+     * Returns one future per read, in order, completing with that read's {@link TagIngestResult} once
+     * Kafka acknowledges or fails it; nothing here waits for the broker. Each record holds a permit from
+     * the {@code ingest.max-in-flight} budget until then. A batch that doesn't fit in the remaining
+     * budget is rejected as a whole with {@link IngestOverloadedException} so the caller backs off.
      */
-    public void publishTags(List<TagInfo> tags) {
+    public List<CompletableFuture<TagIngestResult>> publishTags(List<TagInfo> tags) {
+        if (tags.size() > maxInFlight) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch of " + tags.size() + " exceeds the in-flight budget of " + maxInFlight);
+        }
+        if (!permits.tryAcquire(tags.size())) {
+            rejected.increment();
+            throw new IngestOverloadedException("Ingest is at its in-flight publish limit, retry later", retryAfterSeconds);
+        }
 
+        List<CompletableFuture<TagIngestResult>> results = new ArrayList<>(tags.size());
+        String producerError = null;
         for (TagInfo tag : tags) {
+            if (tag == null) {
+                // a literal null in the array: nothing to publish, but the rest of the batch still is
+                permits.release();
+                results.add(CompletableFuture.completedFuture(rejected(null, "Malformed record: null")));
+                continue;
+            }
+            if (producerError != null) {
+                // the producer stopped taking records; don't wait max-block-ms again for each one
+                permits.release();
+                results.add(CompletableFuture.completedFuture(failed(tag, producerError)));
+                continue;
+            }
+            try {
+                results.add(publish(tag));
+            } catch (RuntimeException e) {
+                permits.release();
+                if (!isProducerRefusal(e)) {
+                    results.add(CompletableFuture.completedFuture(rejected(tag, "Invalid record: " + e.getMessage())));
+                    continue;
+                }
+                failures.increment();
+                producerError = "Kafka producer is not accepting records: " + e.getMessage();
+                results.add(CompletableFuture.completedFuture(failed(tag, producerError)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Publishes a newline-delimited JSON stream of reads as it is parsed, one record at a time, so heap
+     * use doesn't depend on the size of the upload.
+     *
+     * Each record takes a permit from the shared {@code ingest.max-in-flight} budget before it is read;
+     * while none is free the request thread stops reading the body, which lets TCP flow control slow the
+     * sender down to what Kafka acknowledges. Reading stops early, leaving the rest of the stream
+     * unconsumed, if no permit frees up within {@code ingest.stream.permit-wait-ms}, if the producer
+     * refuses records, or at a malformed record.
+     */
+    public StreamIngest publishStream(InputStream body) throws IOException {
+        StreamIngest stream = new StreamIngest();
+        try (MappingIterator<TagInfo> reads = objectMapper.readerFor(TagInfo.class).readValues(body)) {
+            while (true) {
+                if (!permits.tryAcquire(streamPermitWaitMs, TimeUnit.MILLISECONDS)) {
+                    rejected.increment();
+                    log.warn("Stopping streamed ingest after {} reads: no publish permit within {} ms",
+                            stream.read, streamPermitWaitMs);
+                    break;
+                }
+                TagInfo tag;
+                try {
+                    if (!reads.hasNextValue()) {
+                        permits.release();
+                        break;
+                    }
+                    tag = reads.nextValue();
+                } catch (JsonProcessingException e) {
+                    permits.release();
+                    stream.settle(stream.read++, TagIngestResult.builder()
+                            .status(TagIngestResult.REJECTED)
+                            .error("Malformed record: " + e.getOriginalMessage())
+                            .build());
+                    break;
+                }
 
-            if (tag.getCurrentTrip() == null) {
-                log.error("Rejecting tag={} because currentTrip is null", tag.getTagId());
-                continue; // skip bad message, do not crash entire batch
+                int index = stream.read++;
+                if (tag == null) {
+                    // a literal null line: nothing to publish, but the stream itself is still readable
+                    permits.release();
+                    stream.settle(index, rejected(null, "Malformed record: null"));
+                    continue;
+                }
+                try {
+                    stream.track(index, tag, publish(tag));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    if (!isProducerRefusal(e)) {
+                        stream.settle(index, rejected(tag, "Invalid record: " + e.getMessage()));
+                        continue;
+                    }
+                    failures.increment();
+                    stream.settle(index, failed(tag, "Kafka producer is not accepting records: " + e.getMessage()));
+                    break;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stream.endOfInput();
+        return stream;
+    }
 
-            // Generate eventId if not present
-            if (tag.getCurrentTrip().getEventId() == null) {
-                tag.getCurrentTrip().setEventId(UUID.randomUUID().toString());
+    /**
+     * Tally of one streamed upload. Only reads still awaiting Kafka and reads that weren't published are
+     * held, so its size is bounded by the in-flight budget plus the failures.
+     */
+    public static final class StreamIngest {
+        private final CompletableFuture<Void> drained = new CompletableFuture<>();
+        private final Map<Integer, UUID> inFlight = new HashMap<>(); // index → eventId
+        private final List<TagIngestResult> unpublished = new ArrayList<>();
+        private int published;
+        private boolean inputDone;
+        private int read; // only touched by the request thread
+
+        /** Completes once every read taken from the stream has been acknowledged or has failed. */
+        public CompletableFuture<Void> drained() {
+            return drained;
+        }
+
+        /** Reply as of now; reads still awaiting Kafka are reported as TIMEOUT. */
+        public synchronized TagIngestResponse collect() {
+            List<TagIngestResult> results = new ArrayList<>(unpublished);
+            inFlight.forEach((index, eventId) -> results.add(TagIngestResult.builder()
+                    .status(TagIngestResult.TIMEOUT)
+                    .eventId(eventId)
+                    .index(index)
+                    .error("No Kafka ack before deadline")
+                    .build()));
+            results.sort(Comparator.comparing(TagIngestResult::getIndex));
+            return TagIngestResponse.builder()
+                    .published(published)
+                    .failed(results.size())
+                    .results(results)
+                    .build();
+        }
+
+        private void track(int index, TagInfo tag, CompletableFuture<TagIngestResult> send) {
+            synchronized (this) {
+                inFlight.put(index, tag.getCurrentTrip() != null ? tag.getCurrentTrip().getEventId() : null);
+            }
+            send.thenAccept(result -> settle(index, result));
+        }
+
+        private synchronized void settle(int index, TagIngestResult result) {
+            inFlight.remove(index);
+            if (TagIngestResult.PUBLISHED.equals(result.getStatus())) {
+                published++;
+            } else {
+                result.setIndex(index);
+                unpublished.add(result);
+            }
+            if (inputDone && inFlight.isEmpty()) {
+                drained.complete(null);
             }
+        }
 
-            // Compute toll (central pricing logic)
-            double toll = rateService.getToll(
-                    tag.getCurrentTrip().getPlazaId(),
-                    tag.getCurrentTrip().getLaneId(),
-                    tag.getVehicleType()   //use vehicleType for realistic toll rules
-            );
-            tag.getCurrentTrip().setTollAmount(toll);
-
-            // Publish to Kafka
-            kafkaTemplate.send(topic, tag.getTagId(), tag)
-                    .whenComplete((result, ex) -> {
-                        if (ex == null) {
-                            log.info("Published tagId={} eventId={} toll={} to topic={}",
-                                    tag.getTagId(), tag.getCurrentTrip().getEventId(), toll, topic);
-                        } else {
-                            log.error("Failed to publish tagId={} due to {}", tag.getTagId(), ex.getMessage());
-                        }
-                    });
+        private synchronized void endOfInput() {
+            inputDone = true;
+            if (inFlight.isEmpty()) {
+                drained.complete(null);
+            }
         }
     }
-}
 
+    private CompletableFuture<TagIngestResult> publish(TagInfo tag) {
+        if (tag.getCurrentTrip() == null) {
+            log.error("Rejecting tag={} because currentTrip is null", tag.getTagId());
+            permits.release();
+            return CompletableFuture.completedFuture(TagIngestResult.builder()
+                    .status(TagIngestResult.REJECTED)
+                    .error("currentTrip is required")
+                    .build()); // skip bad message, do not crash entire batch
+        }
+
+        // The edge mints the eventId at read time; only reads from older edges arrive without one
+        if (tag.getCurrentTrip().getEventId() == null) {
+            tag.getCurrentTrip().setEventId(EventIds.next());
+        }
+
+        // Compute toll (central pricing logic)
+        double toll = rateService.getToll(
+                tag.getCurrentTrip().getPlazaId(),
+                tag.getCurrentTrip().getLaneId(),
+                tag.getVehicleType()   //use vehicleType for realistic toll rules
+        );
+        tag.getCurrentTrip().setTollAmount(toll);
+
+        // Publish to Kafka; send() itself throws if the producer buffer stays full for max-block-ms
+        return kafkaTemplate.send(topic, tag.getTagId(), tag)
+                .handle((result, ex) -> {
+                    permits.release();
+                    if (ex == null) {
+                        log.debug("Published tagId={} eventId={} toll={} to topic={}",
+                                tag.getTagId(), tag.getCurrentTrip().getEventId(), toll, topic);
+                        return TagIngestResult.builder()
+                                .status(TagIngestResult.PUBLISHED)
+                                .eventId(tag.getCurrentTrip().getEventId())
+                                .partition(result.getRecordMetadata().partition())
+                                .offset(result.getRecordMetadata().offset())
+                                .build();
+                    }
+                    failures.increment();
+                    log.error("Failed to publish tagId={} due to {}", tag.getTagId(), ex.getMessage());
+                    return failed(tag, ex.getMessage());
+                });
+    }
+
+    private static TagIngestResult failed(TagInfo tag, String error) {
+        return TagIngestResult.builder()
+                .status(TagIngestResult.FAILED)
+                .eventId(eventIdOf(tag))
+                .error(error)
+                .build();
+    }
+
+    private static TagIngestResult rejected(TagInfo tag, String error) {
+        return TagIngestResult.builder()
+                .status(TagIngestResult.REJECTED)
+                .eventId(eventIdOf(tag))
+                .error(error)
+                .build();
+    }
+
+    private static UUID eventIdOf(TagInfo tag) {
+        return tag != null && tag.getCurrentTrip() != null ? tag.getCurrentTrip().getEventId() : null;
+    }
+
+    // send() itself refused the record: buffer full for max-block-ms, producer closed, and the like.
+    // Anything else (e.g. a read the tariff can't price) only concerns that one read.
+    private static boolean isProducerRefusal(RuntimeException e) {
+        return e instanceof KafkaException || e instanceof org.springframework.kafka.KafkaException;
+    }
+}
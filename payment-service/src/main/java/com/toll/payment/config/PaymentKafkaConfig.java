@@ -1,5 +1,8 @@
 package com.toll.payment.config;
 
+import com.toll.common.codec.MessageCodec;
+import com.toll.common.kafka.TollMessageDeserializer;
+import com.toll.common.kafka.TollMessageSerializer;
 import com.toll.common.model.TagChargeRequest;
 import com.toll.common.model.TagChargeResponse;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
@@ -13,8 +16,6 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.Map;
 
@@ -25,6 +26,9 @@ public class PaymentKafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrap;
 
+    @Value("${payment.value-format:JSON}")
+    private MessageCodec.Format valueFormat;
+
     // Consumer: TagChargeRequest
     @Bean
     public ConsumerFactory<String, TagChargeRequest> chargeRequestConsumerFactory() {
@@ -33,9 +37,8 @@ public class PaymentKafkaConfig {
                 ConsumerConfig.GROUP_ID_CONFIG, "payment-service-group",
                 ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
                 ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class,
-                "spring.deserializer.value.delegate.class", JsonDeserializer.class,
-                "spring.json.trusted.packages", "*",
-                "spring.json.value.default.type", TagChargeRequest.class.getName()
+                "spring.deserializer.value.delegate.class", TollMessageDeserializer.class,
+                TollMessageDeserializer.TYPE_CONFIG, TagChargeRequest.class
         ));
     }
 
@@ -52,11 +55,9 @@ public class PaymentKafkaConfig {
     //Producer: TagChargeResponse
     @Bean
     public ProducerFactory<String, TagChargeResponse> chargeResponseProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(Map.of(
-                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap,
-                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
-                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class
-        ));
+        return new DefaultKafkaProducerFactory<>(
+                Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap),
+                new StringSerializer(), new TollMessageSerializer<>(valueFormat));
     }
 
     @Bean(name = "chargeResponseKafkaTemplate")
@@ -1,6 +1,6 @@
 package com.toll.payment.config;
 
-import com.fasterxml.jackson.databind.JsonSerializer;
+import com.toll.common.kafka.TollMessageSerializer;
 import com.toll.common.model.TagChargeRequest;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.TopicPartition;
@@ -24,12 +24,14 @@ public class PaymentKafkaDLTConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrap;
 
+    // Dead letters are kept as JSON so they can be inspected; verify's replay reads either format
     @Bean
     public ProducerFactory<Object, Object> dltProducerFactory() {
         return new DefaultKafkaProducerFactory<>(Map.of(
                 ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap,
                 ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
-                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, TollMessageSerializer.class,
+                TollMessageSerializer.FORMAT_CONFIG, "JSON"
         ));
     }
 
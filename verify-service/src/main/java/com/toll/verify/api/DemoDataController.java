@@ -3,10 +3,14 @@ package com.toll.verify.api;
 
 import com.toll.common.model.BlacklistEntry;
 import com.toll.common.model.TagInfo;
+import com.toll.common.store.TagAccountStore;
+import com.toll.verify.cache.TagCache;
+import com.toll.verify.service.BlacklistNotifier;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.TimeUnit;
 
@@ -16,25 +20,23 @@ import java.util.concurrent.TimeUnit;
 public class DemoDataController {
 
     private final RedisTemplate<String, TagInfo> tagRedisTemplate;
+    private final TagAccountStore tagAccountStore;
     private final RedisTemplate<String, BlacklistEntry> blacklistRedisTemplate;
+    private final BlacklistNotifier blacklistNotifier;
+    private final TagCache tagCache;
 
     @PostMapping("/tag")
     public String createOrUpdateTag(@RequestBody TagInfo tag,
                                     @RequestParam(defaultValue = "300") long ttlSeconds) {
 
         String key = "TAG:" + tag.getTagId();
-        tagRedisTemplate.opsForValue().set(key, tag, ttlSeconds, TimeUnit.SECONDS);
+        tagAccountStore.put(tag, Duration.ofSeconds(ttlSeconds));
         return "TAG stored: " + key + " (TTL " + ttlSeconds + " sec)";
     }
 
     @PostMapping("/balance/{tagId}")
     public String setBalance(@PathVariable String tagId, @RequestParam double balance) {
-        String key = "TAG:" + tagId;
-        TagInfo t = tagRedisTemplate.opsForValue().get(key);
-        if (t == null) return "Tag not found";
-
-        t.setBalance(balance);
-        tagRedisTemplate.opsForValue().set(key, t);
+        if (!tagAccountStore.setBalance(tagId, balance)) return "Tag not found";
         return "Balance updated → " + balance;
     }
 
@@ -48,12 +50,14 @@ public class DemoDataController {
                 .build();
 
         blacklistRedisTemplate.opsForValue().set("BLACKLIST:" + tagId, entry, 24, TimeUnit.HOURS);
+        blacklistNotifier.added(tagId, reason);
         return "Tag BLACKLISTED: " + tagId + " (" + reason + ")";
     }
 
     @DeleteMapping("/blacklist/{tagId}")
     public String unBlacklist(@PathVariable String tagId) {
         blacklistRedisTemplate.delete("BLACKLIST:" + tagId);
+        blacklistNotifier.removed(tagId);
         return "Tag UN-BLACKLISTED: " + tagId;
     }
 
@@ -61,6 +65,8 @@ public class DemoDataController {
     public String resetAll() {
         // for demo simplicity, flush all Redis
         tagRedisTemplate.getConnectionFactory().getConnection().flushAll();
+        blacklistNotifier.reset();
+        tagCache.resetAll();
         return "Redis cleared — clean demo state";
     }
 }
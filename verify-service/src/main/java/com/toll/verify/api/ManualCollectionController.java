@@ -4,6 +4,8 @@ import com.toll.verify.service.VerifyService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/manual")
 @RequiredArgsConstructor
@@ -15,7 +17,7 @@ public class ManualCollectionController {
      * Operator collects toll manually and opens gate
      */
     @PostMapping("/collect/{eventId}")
-    public String collect(@PathVariable String eventId,
+    public String collect(@PathVariable UUID eventId,
                           @RequestParam(defaultValue = "true") boolean applyPenalty) {
 
         double penaltyMultiplier = applyPenalty ? 2.0 : 1.0;
@@ -0,0 +1,62 @@
+package com.toll.verify.cache;
+
+/**
+ * Approximate access counts for TinyLFU admission: a count-min sketch of four rows of counters capped
+ * at 15. Once the sketch has counted ten times its capacity, every counter is halved, so old
+ * popularity fades. Not thread-safe; {@link TagCache} calls it under its lock.
+ */
+final class FrequencySketch {
+
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = { 0x97CB3127, 0xB492B66F, 0x9AE16A3B, 0xC2B2AE35 };
+
+    private final byte[][] rows;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(64, capacity - 1)) << 1;
+        rows = new byte[SEEDS.length][width];
+        mask = width - 1;
+        sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    void increment(String key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int i = 0; i < rows.length; i++) {
+            int index = index(hash, i);
+            if (rows[i][index] < MAX_COUNT) {
+                rows[i][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            halve();
+        }
+    }
+
+    int frequency(String key) {
+        int hash = key.hashCode();
+        int min = MAX_COUNT;
+        for (int i = 0; i < rows.length; i++) {
+            min = Math.min(min, rows[i][index(hash, i)]);
+        }
+        return min;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void halve() {
+        for (byte[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+}
@@ -0,0 +1,345 @@
+package com.toll.verify.cache;
+
+import com.toll.common.model.TagChange;
+import com.toll.common.model.TagInfo;
+import com.toll.common.store.TagAccountStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process L1 in front of the Redis tag accounts, so a tag seen again within
+ * {@code cache.l1.expire-seconds} is answered without a Redis round trip. Only the account (vehicle and
+ * balance) is kept; trip fields are not served from here.
+ *
+ * Holds up to {@code cache.l1.max-size} accounts with W-TinyLFU-style admission: new entries go to an
+ * LRU window of 1% of the size, and an entry pushed out of the window only replaces the main area's
+ * LRU victim if the {@link FrequencySketch} has seen it more often, so a burst of one-off tags can't
+ * flush the regulars.
+ *
+ * Every account write publishes a {@link TagChange} from inside its Redis script; balance changes are
+ * applied to the cached copy and replaced accounts are dropped. To bound staleness the cache publishes
+ * a numbered heartbeat of its own every {@code cache.l1.heartbeat-ms}, and serves entries only while one
+ * sent within the last {@code cache.l1.max-staleness-ms} has come back: pub/sub delivers in order, so
+ * every write before that heartbeat has been applied. A gap in the numbering means messages were lost
+ * and empties the cache.
+ *
+ * Metrics: {@code verify.l1.requests{result}}, {@code verify.l1.evictions{cause}}, {@code verify.l1.size}
+ * and {@code verify.l1.staleness}, seconds since the last heartbeat came back.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TagCache implements MessageListener {
+
+    private final TagAccountStore tagAccountStore;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.l1.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.l1.max-size:100000}")
+    private int maxSize;
+
+    @Value("${cache.l1.expire-seconds:60}")
+    private long expireSeconds;
+
+    @Value("${cache.l1.max-staleness-ms:1000}")
+    private long maxStalenessMs;
+
+    private record Entry(TagInfo account, long loadedAt) {
+    }
+
+    // A read from Redis in progress; a change announced meanwhile keeps its result out of the cache
+    private static final class Load {
+        int readers;
+        boolean changed;
+    }
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong heartbeatsSent = new AtomicLong();
+
+    // All guarded by this
+    private final Map<String, Load> loading = new HashMap<>();
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private FrequencySketch sketch;
+    private long lastHeartbeat;
+
+    private int windowMax;
+    private int mainMax;
+    private long expireNanos;
+    private long maxStalenessNanos;
+    private volatile long syncedAt; // System.nanoTime() at which the latest returned heartbeat was sent
+
+    private Counter hits;
+    private Counter misses;
+    private Counter sizeEvictions;
+    private Counter expiredEvictions;
+    private Counter staleEvictions;
+
+    @PostConstruct
+    public void start() {
+        windowMax = Math.max(1, maxSize / 100);
+        mainMax = Math.max(1, maxSize - windowMax);
+        sketch = new FrequencySketch(maxSize);
+        expireNanos = TimeUnit.SECONDS.toNanos(expireSeconds);
+        maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMs);
+        syncedAt = System.nanoTime() - maxStalenessNanos - 1; // nothing is served until a heartbeat returns
+
+        hits = meterRegistry.counter("verify.l1.requests", "result", "hit");
+        misses = meterRegistry.counter("verify.l1.requests", "result", "miss");
+        sizeEvictions = meterRegistry.counter("verify.l1.evictions", "cause", "size");
+        expiredEvictions = meterRegistry.counter("verify.l1.evictions", "cause", "expired");
+        staleEvictions = meterRegistry.counter("verify.l1.evictions", "cause", "stale");
+        Gauge.builder("verify.l1.size", this, TagCache::size).register(meterRegistry);
+        Gauge.builder("verify.l1.staleness", this, c -> (System.nanoTime() - c.syncedAt) / 1e9)
+                .baseUnit("seconds").register(meterRegistry);
+
+        if (enabled) {
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(TagChange.CHANNEL));
+        }
+    }
+
+    /** Accounts for the given tags in order, null where Redis has none; only L1 misses go to Redis. */
+    public List<TagInfo> getAll(List<String> tagIds) {
+        if (!enabled) return tagAccountStore.getAll(tagIds);
+
+        List<TagInfo> accounts = new ArrayList<>(Collections.nCopies(tagIds.size(), null));
+        List<String> missed = new ArrayList<>();
+        List<Integer> missedAt = new ArrayList<>();
+        synchronized (this) {
+            boolean synced = isSynced();
+            if (!synced) clear(staleEvictions);
+            for (int i = 0; i < tagIds.size(); i++) {
+                String tagId = tagIds.get(i);
+                TagInfo cached = synced ? lookup(tagId) : null;
+                if (cached != null) {
+                    accounts.set(i, account(cached));
+                } else {
+                    missed.add(tagId);
+                    missedAt.add(i);
+                    loading.computeIfAbsent(tagId, k -> new Load()).readers++;
+                }
+            }
+        }
+        hits.increment(tagIds.size() - missed.size());
+        misses.increment(missed.size());
+        if (missed.isEmpty()) return accounts;
+
+        List<TagInfo> loaded = null;
+        try {
+            loaded = tagAccountStore.getAll(missed);
+        } finally {
+            synchronized (this) {
+                boolean synced = isSynced();
+                for (int j = 0; j < missed.size(); j++) {
+                    String tagId = missed.get(j);
+                    boolean changed = endLoad(tagId);
+                    TagInfo tag = loaded != null ? loaded.get(j) : null;
+                    if (tag != null && synced && !changed) admit(tagId, tag);
+                    accounts.set(missedAt.get(j), tag);
+                }
+            }
+        }
+        return accounts;
+    }
+
+    /** Drops a tag from this instance's L1, e.g. when Redis turned out not to have it any more. */
+    public synchronized void invalidate(String tagId) {
+        markChanged(tagId);
+        remove(tagId);
+    }
+
+    /** Tells every instance to empty its L1, after the tag accounts were removed wholesale. */
+    public void resetAll() {
+        synchronized (this) {
+            clear(staleEvictions);
+        }
+        try {
+            stringRedisTemplate.convertAndSend(TagChange.CHANNEL, TagChange.reset().encode());
+        } catch (Exception e) {
+            log.warn("Failed to publish tag cache reset: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.l1.heartbeat-ms:250}")
+    public void sendHeartbeat() {
+        if (!enabled) return;
+        // the number only advances once a heartbeat is out, so a failed publish doesn't read as a lost one
+        long number = heartbeatsSent.get() + 1;
+        String token = instanceId + ":" + number + ":" + System.nanoTime();
+        try {
+            stringRedisTemplate.convertAndSend(TagChange.CHANNEL, TagChange.heartbeat(token).encode());
+            heartbeatsSent.set(number);
+        } catch (Exception e) {
+            log.debug("Tag cache heartbeat not sent: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        TagChange change;
+        try {
+            change = TagChange.parse(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            // can't tell what changed, so trust nothing cached
+            log.warn("Malformed tag change, emptying L1: {}", e.getMessage());
+            synchronized (this) {
+                clear(staleEvictions);
+            }
+            return;
+        }
+        synchronized (this) {
+            switch (change.getType()) {
+                case BALANCE -> {
+                    markChanged(change.getTagId());
+                    updateBalance(change.getTagId(), change.getBalanceMinor());
+                }
+                case INVALIDATED -> {
+                    markChanged(change.getTagId());
+                    remove(change.getTagId());
+                }
+                case RESET -> clear(staleEvictions);
+                case HEARTBEAT -> heartbeatReturned(change.getToken());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    private boolean isSynced() {
+        return System.nanoTime() - syncedAt <= maxStalenessNanos;
+    }
+
+    // Caller holds the lock
+    private void heartbeatReturned(String token) {
+        String[] parts = token.split(":");
+        if (parts.length != 3 || !parts[0].equals(instanceId)) return; // another instance's
+        long number = Long.parseLong(parts[1]);
+        if (number <= lastHeartbeat) return;
+        if (number != lastHeartbeat + 1 && lastHeartbeat != 0) {
+            log.warn("Tag cache missed {} heartbeats, changes may have been lost; emptying L1",
+                    number - lastHeartbeat - 1);
+            clear(staleEvictions);
+        }
+        lastHeartbeat = number;
+        syncedAt = Long.parseLong(parts[2]);
+    }
+
+    // Caller holds the lock
+    private TagInfo lookup(String tagId) {
+        sketch.increment(tagId);
+        Entry entry = window.get(tagId);
+        if (entry == null) entry = main.get(tagId);
+        if (entry == null) return null;
+        if (System.nanoTime() - entry.loadedAt() > expireNanos) {
+            remove(tagId);
+            expiredEvictions.increment();
+            return null;
+        }
+        return entry.account();
+    }
+
+    // Caller holds the lock
+    private void admit(String tagId, TagInfo tag) {
+        Entry entry = new Entry(account(tag), System.nanoTime());
+        if (main.containsKey(tagId)) {
+            main.put(tagId, entry);
+            return;
+        }
+        window.put(tagId, entry);
+        if (window.size() <= windowMax) return;
+
+        Map.Entry<String, Entry> candidate = window.entrySet().iterator().next();
+        String candidateId = candidate.getKey();
+        Entry candidateEntry = candidate.getValue();
+        window.remove(candidateId);
+        if (main.size() < mainMax) {
+            main.put(candidateId, candidateEntry);
+            return;
+        }
+        // TinyLFU: the window's LRU entry only gets in if it is used more than main's LRU entry
+        String victimId = main.keySet().iterator().next();
+        if (sketch.frequency(candidateId) > sketch.frequency(victimId)) {
+            main.remove(victimId);
+            main.put(candidateId, candidateEntry);
+        }
+        sizeEvictions.increment();
+    }
+
+    // Caller holds the lock
+    private void updateBalance(String tagId, long balanceMinor) {
+        Map<String, Entry> area = window.containsKey(tagId) ? window : main.containsKey(tagId) ? main : null;
+        if (area == null) return;
+        Entry entry = area.get(tagId);
+        TagInfo updated = account(entry.account());
+        updated.setBalance(balanceMinor / 100.0);
+        area.put(tagId, new Entry(updated, entry.loadedAt()));
+    }
+
+    // Caller holds the lock
+    private void remove(String tagId) {
+        if (window.remove(tagId) == null) main.remove(tagId);
+    }
+
+    // Caller holds the lock
+    private void clear(Counter cause) {
+        loading.values().forEach(load -> load.changed = true);
+        int size = window.size() + main.size();
+        if (size == 0) return;
+        cause.increment(size);
+        window.clear();
+        main.clear();
+    }
+
+    // Caller holds the lock
+    private void markChanged(String tagId) {
+        Load load = loading.get(tagId);
+        if (load != null) load.changed = true;
+    }
+
+    // Caller holds the lock; true if the tag changed while it was being read
+    private boolean endLoad(String tagId) {
+        Load load = loading.get(tagId);
+        boolean changed = load.changed;
+        if (--load.readers == 0) loading.remove(tagId);
+        return changed;
+    }
+
+    // A copy with only the account attributes, so callers can't change what is cached
+    private static TagInfo account(TagInfo tag) {
+        return TagInfo.builder()
+                .tagId(tag.getTagId())
+                .vehicleNumber(tag.getVehicleNumber())
+                .vehicleType(tag.getVehicleType())
+                .balance(tag.getBalance())
+                .build();
+    }
+}
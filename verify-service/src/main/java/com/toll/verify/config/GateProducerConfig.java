@@ -1,5 +1,7 @@
 package com.toll.verify.config;
 
+import com.toll.common.codec.MessageCodec;
+import com.toll.common.kafka.TollMessageSerializer;
 import com.toll.common.model.OpenGateCommand;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -14,16 +16,16 @@ public class GateProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrap;
 
+    @Value("${verify.value-format.gate-command:JSON}")
+    private MessageCodec.Format valueFormat;
+
     @Bean
     public ProducerFactory<String, OpenGateCommand> gateProducerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-                org.springframework.kafka.support.serializer.JsonSerializer.class);
-        config.put("spring.json.add.type.headers", false);
 
-        return new DefaultKafkaProducerFactory<>(config);
+        return new DefaultKafkaProducerFactory<>(
+                config, new StringSerializer(), new TollMessageSerializer<>(valueFormat));
     }
 
     @Bean
@@ -1,6 +1,8 @@
 
 package com.toll.verify.config;
 
+import com.toll.common.codec.MessageCodec;
+import com.toll.common.kafka.TollMessageSerializer;
 import com.toll.common.model.TagChargeRequest;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -10,7 +12,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,14 +22,15 @@ public class KafkaChargeRequestConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrap;
 
+    @Value("${verify.value-format.charge-request:JSON}")
+    private MessageCodec.Format valueFormat;
+
     @Bean
     public ProducerFactory<String, TagChargeRequest> chargeRequestProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return new DefaultKafkaProducerFactory<>(
+                configProps, new StringSerializer(), new TollMessageSerializer<>(valueFormat));
     }
 
     @Bean(name = "chargeRequestKafkaTemplate")
@@ -0,0 +1,64 @@
+package com.toll.verify.config;
+
+import com.toll.common.kafka.TollMessageDeserializer;
+import com.toll.common.model.TagInfo;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Batch listener for {@code toll.tag.event}: each poll of up to {@code verify.batch.max-records} records
+ * is handed to the listener at once. A record that can't be processed is retried and then dead-lettered
+ * on its own by the shared error handler, after the records before it are committed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "verify.batch.enabled", havingValue = "true", matchIfMissing = true)
+public class TagEventBatchConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrap;
+
+    @Value("${verify.batch.max-records:500}")
+    private int maxRecords;
+
+    @Value("${verify.batch.fetch-max-wait-ms:50}")
+    private int fetchMaxWaitMs;
+
+    @Bean
+    public ConsumerFactory<String, TagInfo> tagEventConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "verify-service-group");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put("spring.deserializer.value.delegate.class", TollMessageDeserializer.class);
+        props.put(TollMessageDeserializer.TYPE_CONFIG, TagInfo.class);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxRecords);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean(name = "tagEventBatchListenerFactory")
+    public ConcurrentKafkaListenerContainerFactory<String, TagInfo> tagEventBatchListenerFactory(
+            ConsumerFactory<String, TagInfo> tagEventConsumerFactory,
+            DefaultErrorHandler verifyErrorHandler) {
+
+        ConcurrentKafkaListenerContainerFactory<String, TagInfo> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(tagEventConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(verifyErrorHandler);
+        return factory;
+    }
+}
@@ -1,5 +1,7 @@
 package com.toll.verify.config;
 
+import com.toll.common.kafka.TollMessageDeserializer;
+import com.toll.common.kafka.TollMessageSerializer;
 import com.toll.common.model.TagChargeResponse;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -15,8 +17,6 @@ import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.Map;
@@ -36,19 +36,19 @@ public class VerifyKafkaDLTConfig {
                 ConsumerConfig.GROUP_ID_CONFIG, "verify-service-response-group",
                 ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
                 ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class,
-                "spring.deserializer.value.delegate.class", JsonDeserializer.class,
-                "spring.json.trusted.packages", "*",
-                "spring.json.value.default.type", TagChargeResponse.class.getName()
+                "spring.deserializer.value.delegate.class", TollMessageDeserializer.class,
+                TollMessageDeserializer.TYPE_CONFIG, TagChargeResponse.class
         ));
     }
 
-    // Producer for publishing failed messages
+    // Producer for publishing failed messages; dead letters are kept as JSON so they can be inspected
     @Bean
     public ProducerFactory<Object, Object> dltProducerFactory() {
         return new DefaultKafkaProducerFactory<>(Map.of(
                 ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap,
                 ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
-                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, TollMessageSerializer.class,
+                TollMessageSerializer.FORMAT_CONFIG, "JSON"
         ));
     }
 
@@ -84,6 +84,7 @@ public class VerifyKafkaDLTConfig {
         ConcurrentKafkaListenerContainerFactory<String, TagChargeResponse> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true); // spread over the TagLanes, see ChargeResponseListener
         factory.setCommonErrorHandler(verifyErrorHandler);
         return factory;
     }
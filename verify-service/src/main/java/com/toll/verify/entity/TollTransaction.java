@@ -2,19 +2,24 @@ package com.toll.verify.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
+
 import java.time.Instant;
 import java.util.UUID;
 
+/**
+ * One toll event, keyed by the time-ordered eventId the edge minted for the read, stored as a native
+ * uuid. New rows therefore append at the end of the primary-key index, and the key doubles as the
+ * idempotency check. {@link Persistable} lets a new transaction be inserted directly instead of being
+ * looked up first, as Spring Data would for any entity with an assigned id.
+ */
 @Entity
-@Table(name = "toll_transaction", uniqueConstraints = @UniqueConstraint(columnNames = {"event_id"}))
+@Table(name = "toll_transaction")
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
-public class TollTransaction {
+public class TollTransaction implements Persistable<UUID> {
     @Id
-    @GeneratedValue
-    private UUID id;
-
-    @Column(name = "event_id", nullable = false, unique = true)
-    private String eventId;
+    @Column(name = "event_id", columnDefinition = "uuid", nullable = false, updatable = false)
+    private UUID eventId;
 
     private String tagId;
     private String vehicleNumber;
@@ -26,8 +31,27 @@ public class TollTransaction {
     private Double previousBalance;
     private Double newBalance;
     private String status; // SUCCESS, INSUFFICIENT_FUNDS
+    private Boolean balanceHeld; // the toll was held on the Redis balance while the charge is pending
     private Instant createdAt;
     @Column(name = "manual_penalty_amount")
     private Double manualPenaltyAmount;
-}
 
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public UUID getId() {
+        return eventId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
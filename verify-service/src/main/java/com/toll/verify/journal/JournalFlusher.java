@@ -0,0 +1,120 @@
+package com.toll.verify.journal;
+
+import com.toll.verify.entity.TollTransaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loads journaled transactions into {@code toll_transaction} with multi-row
+ * {@code INSERT ... ON CONFLICT (event_id) DO NOTHING} statements of up to
+ * {@code verify.write-behind.flush-batch} rows, each in its own transaction. A chunk is committed in the
+ * journal only after its insert commits, and rows already present are skipped, so a crash between the
+ * two just loads the chunk again. A failed load is retried on the next run.
+ */
+@Slf4j
+@Component
+public class JournalFlusher {
+
+    private static final String COLUMNS = "event_id, tag_id, vehicle_number, vehicle_type, plaza_id, lane_id, "
+            + "timestamp, toll_amount, previous_balance, new_balance, status, created_at, manual_penalty_amount, "
+            + "balance_held";
+    private static final int COLUMN_COUNT = 14;
+    private static final String ROW = "(" + "?, ".repeat(COLUMN_COUNT - 1) + "?)";
+
+    private final TransactionJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${verify.write-behind.flush-batch:1000}")
+    private int flushBatch;
+
+    public JournalFlusher(TransactionJournal journal, JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${verify.write-behind.flush-interval-ms:200}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            meterRegistry.counter("verify.journal.flush.failures").increment();
+            log.warn("Journal flush to Postgres failed, retrying in the next run: {}", e.getMessage());
+        }
+    }
+
+    /** Loads everything journaled so far. */
+    public synchronized void flush() {
+        while (journal.hasUncommitted()) {
+            TransactionJournal.Chunk chunk = journal.readUncommitted(flushBatch);
+            if (!chunk.transactions().isEmpty()) {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                newTransaction.executeWithoutResult(status -> insert(chunk.transactions()));
+                sample.stop(meterRegistry.timer("verify.journal.flush"));
+                meterRegistry.counter("verify.journal.flushed").increment(chunk.transactions().size());
+            }
+            journal.commit(chunk);
+        }
+    }
+
+    /**
+     * Makes sure a transaction is in Postgres before it is read or updated, loading the journal now
+     * if it is still waiting there.
+     */
+    public void awaitStored(UUID eventId) {
+        if (journal.isEnabled() && journal.isUnflushed(eventId)) {
+            flush();
+        }
+    }
+
+    private void insert(List<TollTransaction> txs) {
+        String sql = "INSERT INTO toll_transaction (" + COLUMNS + ") VALUES "
+                + String.join(", ", Collections.nCopies(txs.size(), ROW))
+                + " ON CONFLICT (event_id) DO NOTHING";
+        List<Object> args = new ArrayList<>(txs.size() * COLUMN_COUNT);
+        for (TollTransaction tx : txs) {
+            args.add(tx.getEventId());
+            args.add(tx.getTagId());
+            args.add(tx.getVehicleNumber());
+            args.add(tx.getVehicleType());
+            args.add(tx.getPlazaId());
+            args.add(tx.getLaneId());
+            args.add(timestamp(tx.getTimestamp()));
+            args.add(tx.getTollAmount());
+            args.add(tx.getPreviousBalance());
+            args.add(tx.getNewBalance());
+            args.add(tx.getStatus());
+            args.add(timestamp(tx.getCreatedAt()));
+            args.add(tx.getManualPenaltyAmount());
+            args.add(tx.getBalanceHeld());
+        }
+        int inserted = jdbcTemplate.update(sql, args.toArray());
+        if (inserted < txs.size()) {
+            log.info("Journal flush skipped {} transaction(s) already in Postgres", txs.size() - inserted);
+        }
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return instant != null ? Timestamp.from(instant) : null;
+    }
+}
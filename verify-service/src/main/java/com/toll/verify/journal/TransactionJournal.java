@@ -0,0 +1,192 @@
+package com.toll.verify.journal;
+
+import com.toll.common.codec.ByteReader;
+import com.toll.common.codec.ByteWriter;
+import com.toll.common.codec.CodecSupport;
+import com.toll.common.log.SegmentLog;
+import com.toll.verify.entity.TollTransaction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind journal of new toll transactions, used when {@code verify.write-behind.enabled} is set.
+ *
+ * Transactions are appended to a {@link SegmentLog} and forced to disk before {@link #append} returns,
+ * so the gate and charge messages can go out without waiting on Postgres. The {@link JournalFlusher}
+ * loads them into {@code toll_transaction} in the background and moves the committed cursor past them;
+ * on restart everything after the cursor is loaded again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionJournal {
+
+    private static final int VERSION = 1;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${verify.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${verify.write-behind.dir:./data/journal}")
+    private String dir;
+
+    @Value("${verify.write-behind.segment-bytes:67108864}") // 64 MB
+    private int segmentBytes;
+
+    /** Transactions read from the journal, and the position just after the last of them. */
+    public record Chunk(List<TollTransaction> transactions, long end) {
+    }
+
+    private final Set<UUID> unflushed = ConcurrentHashMap.newKeySet();
+
+    private SegmentLog<TollTransaction> segmentLog;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) return;
+        segmentLog = new SegmentLog<>("transaction journal", Paths.get(dir), segmentBytes, new SegmentLog.Codec<>() {
+            @Override
+            public byte[] encode(TollTransaction tx) {
+                return TransactionJournal.encode(tx);
+            }
+
+            @Override
+            public TollTransaction decode(byte[] payload) {
+                return TransactionJournal.decode(payload);
+            }
+        });
+        segmentLog.open();
+
+        // Transactions not yet in Postgres stay visible to awaitStored() until they are loaded
+        long pos = segmentLog.committed();
+        while (pos != segmentLog.writePosition()) {
+            Chunk chunk = read(pos, 10_000);
+            chunk.transactions().forEach(tx -> unflushed.add(tx.getEventId()));
+            pos = chunk.end();
+        }
+        Gauge.builder("verify.journal.pending", unflushed, Set::size).register(meterRegistry);
+        log.info("Transaction journal opened at {}: {} segment(s), {} transaction(s) to load",
+                segmentLog.root().toAbsolutePath(), segmentLog.segmentCount(), unflushed.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Durably appends new transactions; they are on disk when this returns. */
+    public void append(List<TollTransaction> txs) {
+        if (txs.isEmpty()) return;
+        // marked before they can be read, so the flusher never unmarks one ahead of this
+        txs.forEach(tx -> unflushed.add(tx.getEventId()));
+        try {
+            segmentLog.append(txs, true);
+        } catch (RuntimeException e) {
+            txs.forEach(tx -> unflushed.remove(tx.getEventId()));
+            throw e;
+        }
+    }
+
+    /** Up to {@code maxRecords} transactions after the committed cursor; unreadable records are skipped. */
+    public Chunk readUncommitted(int maxRecords) {
+        return read(segmentLog.committed(), maxRecords);
+    }
+
+    /** Moves the committed cursor to {@code end} once the given transactions are in Postgres. */
+    public void commit(Chunk chunk) {
+        segmentLog.commit(chunk.end(), true);
+        chunk.transactions().forEach(tx -> unflushed.remove(tx.getEventId()));
+    }
+
+    /** True if the transaction is journaled but not yet loaded into Postgres. */
+    public boolean isUnflushed(UUID eventId) {
+        return unflushed.contains(eventId);
+    }
+
+    public boolean hasUncommitted() {
+        return enabled && segmentLog.hasUncommitted();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) return;
+        segmentLog.force();
+    }
+
+    // ------------------------------------------------------------------
+
+    private Chunk read(long start, int maxRecords) {
+        SegmentLog.Slice<TollTransaction> slice = segmentLog.read(start, maxRecords, Long.MAX_VALUE);
+        return new Chunk(slice.items(), slice.end());
+    }
+
+    // version, eventId, presence bits, then each present field in declaration order
+    static byte[] encode(TollTransaction tx) {
+        ByteWriter out = new ByteWriter(128);
+        out.writeByte(VERSION);
+        CodecSupport.writeUuid(out, tx.getEventId());
+        out.writeVarInt(bit(0, tx.getTagId()) | bit(1, tx.getVehicleNumber()) | bit(2, tx.getVehicleType())
+                | bit(3, tx.getPlazaId()) | bit(4, tx.getLaneId()) | bit(5, tx.getTimestamp())
+                | bit(6, tx.getTollAmount()) | bit(7, tx.getPreviousBalance()) | bit(8, tx.getNewBalance())
+                | bit(9, tx.getStatus()) | bit(10, tx.getCreatedAt()) | bit(11, tx.getManualPenaltyAmount())
+                | bit(12, tx.getBalanceHeld()));
+        if (tx.getTagId() != null) out.writeString(tx.getTagId());
+        if (tx.getVehicleNumber() != null) out.writeString(tx.getVehicleNumber());
+        if (tx.getVehicleType() != null) out.writeString(tx.getVehicleType());
+        if (tx.getPlazaId() != null) out.writeString(tx.getPlazaId());
+        if (tx.getLaneId() != null) out.writeString(tx.getLaneId());
+        if (tx.getTimestamp() != null) CodecSupport.writeInstant(out, tx.getTimestamp());
+        if (tx.getTollAmount() != null) CodecSupport.writeMoney(out, tx.getTollAmount());
+        if (tx.getPreviousBalance() != null) CodecSupport.writeMoney(out, tx.getPreviousBalance());
+        if (tx.getNewBalance() != null) CodecSupport.writeMoney(out, tx.getNewBalance());
+        if (tx.getStatus() != null) out.writeString(tx.getStatus());
+        if (tx.getCreatedAt() != null) CodecSupport.writeInstant(out, tx.getCreatedAt());
+        if (tx.getManualPenaltyAmount() != null) CodecSupport.writeMoney(out, tx.getManualPenaltyAmount());
+        if (tx.getBalanceHeld() != null) out.writeByte(tx.getBalanceHeld() ? 1 : 0);
+        return out.toByteArray();
+    }
+
+    static TollTransaction decode(byte[] payload) {
+        ByteReader in = new ByteReader(payload);
+        int version = in.readByte();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported journal record version " + version);
+        TollTransaction tx = new TollTransaction();
+        tx.setEventId(CodecSupport.readUuid(in));
+        int present = in.readVarInt();
+        if (has(present, 0)) tx.setTagId(in.readString());
+        if (has(present, 1)) tx.setVehicleNumber(in.readString());
+        if (has(present, 2)) tx.setVehicleType(in.readString());
+        if (has(present, 3)) tx.setPlazaId(in.readString());
+        if (has(present, 4)) tx.setLaneId(in.readString());
+        if (has(present, 5)) tx.setTimestamp(CodecSupport.readInstant(in));
+        if (has(present, 6)) tx.setTollAmount(CodecSupport.readMoney(in));
+        if (has(present, 7)) tx.setPreviousBalance(CodecSupport.readMoney(in));
+        if (has(present, 8)) tx.setNewBalance(CodecSupport.readMoney(in));
+        if (has(present, 9)) tx.setStatus(in.readString());
+        if (has(present, 10)) tx.setCreatedAt(CodecSupport.readInstant(in));
+        if (has(present, 11)) tx.setManualPenaltyAmount(CodecSupport.readMoney(in));
+        if (has(present, 12)) tx.setBalanceHeld(in.readByte() != 0);
+        return tx;
+    }
+
+    private static int bit(int index, Object value) {
+        return value != null ? 1 << index : 0;
+    }
+
+    private static boolean has(int present, int index) {
+        return (present & (1 << index)) != 0;
+    }
+}
@@ -4,28 +4,49 @@ import com.toll.common.model.TagChargeResponse;
 import com.toll.verify.service.VerifyService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+/**
+ * Applies charge responses a poll batch at a time on the {@link TagLanes}, so a tag's responses and tag
+ * events are never handled concurrently. Each response commits in its own transaction.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ChargeResponseListener {
 
     private final VerifyService verifyService;
+    private final TagLanes lanes;
 
-    @Transactional
     @KafkaListener(
             topics = "${payment.topics.response}",
             containerFactory = "chargeResponseListenerFactory"
     )
-    public void handlePaymentResponse(TagChargeResponse response) {
+    public void handlePaymentResponses(List<ConsumerRecord<String, TagChargeResponse>> records) {
+        int end = 0;
+        while (end < records.size() && records.get(end).value() != null) {
+            end++;
+        }
 
-        log.info("Received TagChargeResponse eventId={} status={}",
-                response.getEventId(), response.getStatus());
+        TagLanes.Failure failure = lanes.dispatch(records.subList(0, end), null, record -> {
+            TagChargeResponse response = record.value();
+            log.info("Received TagChargeResponse eventId={} status={}",
+                    response.getEventId(), response.getStatus());
 
-        // Centralize all business logic
-        verifyService.applyPaymentResult(response);
+            // Centralize all business logic
+            verifyService.applyPaymentResult(response);
+        });
+        if (failure != null) {
+            throw new BatchListenerFailedException("Failed to apply charge response", failure.cause(),
+                    failure.index());
+        }
+        if (end < records.size()) {
+            throw new BatchListenerFailedException("Undeserializable charge response", end);
+        }
     }
 }
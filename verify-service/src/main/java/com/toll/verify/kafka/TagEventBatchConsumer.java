@@ -0,0 +1,67 @@
+package com.toll.verify.kafka;
+
+import com.toll.common.model.TagInfo;
+import com.toll.verify.service.EventDeduplicator;
+import com.toll.verify.service.VerifyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Consumes tag events a poll batch at a time, spreads them over the {@link TagLanes} by tagId and has
+ * each lane process its share set-wise via {@link VerifyService#processBatch}. If a lane's share fails
+ * as a whole it is replayed record by record, each in its own transaction, so one bad record can't hold
+ * back the others: the first record that still fails is reported by index, its predecessors' offsets are
+ * committed and it alone is retried and dead-lettered. Records after it are redelivered and skipped by
+ * the idempotency check if already done.
+ * A record whose insert hits the {@code event_id} primary key was processed elsewhere and is skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "verify.batch.enabled", havingValue = "true", matchIfMissing = true)
+public class TagEventBatchConsumer {
+
+    private final VerifyService verifyService;
+    private final EventDeduplicator deduplicator;
+    private final TagLanes lanes;
+
+    @KafkaListener(topics = "${verify.topic:toll.tag.event}", groupId = "verify-service-group",
+            containerFactory = "tagEventBatchListenerFactory")
+    public void consume(List<ConsumerRecord<String, TagInfo>> records) {
+        // an undeserializable record is dead-lettered by the error handler after the ones before it
+        int end = 0;
+        while (end < records.size() && records.get(end).value() != null) {
+            end++;
+        }
+
+        TagLanes.Failure failure = lanes.dispatch(records.subList(0, end), verifyService::processBatch,
+                this::processOne);
+        if (failure != null) {
+            ConsumerRecord<String, TagInfo> failed = records.get(failure.index());
+            log.error("Failed to handle tag event at offset {}: {}", failed.offset(), failure.cause().getMessage(),
+                    failure.cause());
+            throw new BatchListenerFailedException("Failed to handle tag event", failure.cause(), failure.index());
+        }
+        if (end < records.size()) {
+            throw new BatchListenerFailedException("Undeserializable tag event", end);
+        }
+        log.info("Processed batch of {} tag events", records.size());
+    }
+
+    private void processOne(ConsumerRecord<String, TagInfo> record) {
+        try {
+            verifyService.process(record.value());
+        } catch (DataIntegrityViolationException e) {
+            if (!deduplicator.isDuplicate(e)) throw e;
+            log.info("Skipping duplicate tag event at offset {}", record.offset());
+        }
+    }
+}
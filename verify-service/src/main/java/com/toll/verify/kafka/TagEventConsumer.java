@@ -2,17 +2,23 @@ package com.toll.verify.kafka;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.toll.common.model.TagInfo;
+import com.toll.verify.service.EventDeduplicator;
 import com.toll.verify.service.VerifyService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+/** One tag event per call; used when {@code verify.batch.enabled} is false, see {@link TagEventBatchConsumer}. */
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "verify.batch.enabled", havingValue = "false")
 public class TagEventConsumer {
     private final VerifyService verifyService;
+    private final EventDeduplicator deduplicator;
     private final ObjectMapper objectMapper;
 
     @KafkaListener(topics = "${verify.topic:toll.tag.event}", groupId = "verify-service-group")
@@ -21,6 +27,9 @@ public class TagEventConsumer {
            // TagInfo info = objectMapper.readValue(payload, TagInfo.class);
             log.info("Received TagInfo from Kafka: {}", info.getTagId());
             verifyService.process(info);
+        } catch (DataIntegrityViolationException e) {
+            if (!deduplicator.isDuplicate(e)) throw e;
+            log.info("Skipping duplicate event for tag {}", info.getTagId());
         } catch (Exception e) {
             log.error("Failed to parse/handle event: {}", e.getMessage(), e);
             throw new RuntimeException(e);
@@ -0,0 +1,194 @@
+package com.toll.verify.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Single-threaded lanes that process a poll batch in parallel while keeping each tag's records in order.
+ *
+ * A record goes to lane {@code hash(key) mod verify.lanes.count}; both the tag event and the charge
+ * response topics are keyed by tagId, so every record of a tag, from either topic, is handled by the
+ * same thread. {@link #dispatch} returns once every lane has finished its share of the batch, so the
+ * container only commits offsets for records that are done; a failed record stops its lane and is
+ * reported by its index in the batch, so offsets are committed up to the lowest failure.
+ *
+ * Per lane: {@code verify.lane.queued} records waiting or running, {@code verify.lane.lag} age in seconds
+ * of the oldest of them (0 when there are none), and {@code verify.lane.batch} time to run the lane's
+ * share of a batch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TagLanes {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${verify.lanes.count:0}") // 0 = one per core
+    private int configuredLanes;
+
+    /** The record of a batch that failed first, by position in the batch. */
+    public record Failure(int index, Exception cause) {
+    }
+
+    private ExecutorService[] lanes;
+    private AtomicInteger[] queued;
+    private List<Queue<Long>> oldestWaiting; // per lane, per submitted unit, in run order: its oldest record's time
+    private Timer[] batchTimers;
+
+    @PostConstruct
+    public void start() {
+        int n = configuredLanes > 0 ? configuredLanes : Runtime.getRuntime().availableProcessors();
+        lanes = new ExecutorService[n];
+        queued = new AtomicInteger[n];
+        oldestWaiting = new ArrayList<>(n);
+        batchTimers = new Timer[n];
+        for (int i = 0; i < n; i++) {
+            String lane = Integer.toString(i);
+            lanes[i] = Executors.newSingleThreadExecutor(r -> new Thread(r, "verify-lane-" + lane));
+            queued[i] = new AtomicInteger();
+            oldestWaiting.add(new ConcurrentLinkedQueue<>());
+            Gauge.builder("verify.lane.queued", queued[i], AtomicInteger::get).tag("lane", lane)
+                    .register(meterRegistry);
+            Gauge.builder("verify.lane.lag", oldestWaiting.get(i), TagLanes::ageSeconds)
+                    .tag("lane", lane).baseUnit("seconds").register(meterRegistry);
+            batchTimers[i] = meterRegistry.timer("verify.lane.batch", "lane", lane);
+        }
+        log.info("Started {} verify lanes", n);
+    }
+
+    /**
+     * Runs a batch on the lanes and waits for it. Each lane first tries {@code laneBatch} on all of its
+     * records, if given; if that throws, or without it, {@code perRecord} runs its records one at a time
+     * and the lane stops at the first that throws. Returns the lowest-indexed failure, or null.
+     */
+    public <V> Failure dispatch(List<ConsumerRecord<String, V>> records, Consumer<List<V>> laneBatch,
+                                Consumer<ConsumerRecord<String, V>> perRecord) {
+        List<List<Integer>> shares = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            shares.add(new ArrayList<>());
+        }
+        for (int i = 0; i < records.size(); i++) {
+            shares.get(laneOf(records.get(i))).add(i);
+        }
+
+        List<Future<Failure>> results = new ArrayList<>();
+        for (int lane = 0; lane < lanes.length; lane++) {
+            List<Integer> share = shares.get(lane);
+            if (share.isEmpty()) continue;
+            int l = lane;
+            long oldest = Long.MAX_VALUE;
+            for (int i : share) {
+                oldest = Math.min(oldest, records.get(i).timestamp());
+            }
+            queued[l].addAndGet(share.size());
+            Queue<Long> waiting = oldestWaiting.get(l);
+            synchronized (waiting) { // queued in the order the lane will run them
+                waiting.add(oldest);
+                results.add(lanes[l].submit(
+                        () -> batchTimers[l].record(() -> runShare(l, records, share, laneBatch, perRecord))));
+            }
+        }
+
+        Failure first = null;
+        for (Future<Failure> result : results) {
+            Failure failure;
+            try {
+                failure = result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for verify lanes", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Verify lane failed", e.getCause());
+            }
+            if (failure != null && (first == null || failure.index() < first.index())) {
+                first = failure;
+            }
+        }
+        return first;
+    }
+
+    /** Runs a task on the lane of records keyed {@code key}, after whatever that lane has queued. */
+    public void execute(String key, Runnable task) {
+        int lane = laneOf(key.hashCode());
+        queued[lane].incrementAndGet();
+        Queue<Long> waiting = oldestWaiting.get(lane);
+        synchronized (waiting) {
+            waiting.add(System.currentTimeMillis());
+            lanes[lane].execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn("Lane {} task for {} failed: {}", lane, key, e.getMessage(), e);
+                } finally {
+                    waiting.poll();
+                    queued[lane].decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private <V> Failure runShare(int lane, List<ConsumerRecord<String, V>> records, List<Integer> share,
+                                 Consumer<List<V>> laneBatch, Consumer<ConsumerRecord<String, V>> perRecord) {
+        try {
+            if (laneBatch != null) {
+                try {
+                    laneBatch.accept(share.stream().map(i -> records.get(i).value()).toList());
+                    return null;
+                } catch (Exception e) {
+                    log.warn("Lane {} batch of {} failed ({}), replaying record by record", lane, share.size(),
+                            e.getMessage());
+                }
+            }
+            for (int i : share) {
+                try {
+                    perRecord.accept(records.get(i));
+                } catch (Exception e) {
+                    return new Failure(i, e);
+                }
+            }
+            return null;
+        } finally {
+            oldestWaiting.get(lane).poll(); // units run in submission order, so the head is this one
+            queued[lane].addAndGet(-share.size());
+        }
+    }
+
+    private static double ageSeconds(Queue<Long> oldestWaiting) {
+        Long oldest = oldestWaiting.peek();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private int laneOf(ConsumerRecord<String, ?> record) {
+        return laneOf(record.key() != null ? record.key().hashCode() : record.partition());
+    }
+
+    private int laneOf(int hash) {
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
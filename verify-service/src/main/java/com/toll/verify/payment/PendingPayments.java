@@ -0,0 +1,168 @@
+package com.toll.verify.payment;
+
+import com.toll.verify.entity.TollTransaction;
+import com.toll.verify.journal.JournalFlusher;
+import com.toll.verify.kafka.TagLanes;
+import com.toll.verify.repository.TollTransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Charge requests awaiting a response, by eventId, with what settling the transaction needs, so a
+ * charge response is applied without reading its transaction back from Postgres.
+ *
+ * Each request has a deadline {@code payment.timeout.sla-ms} after it was sent, kept in a
+ * {@link TimingWheel} advanced every {@code payment.timeout.tick-ms}. An expired request is handed to
+ * the expiry handler on its tag's {@link TagLanes lane}, so it never races that tag's events or
+ * responses. On startup the index is rebuilt from the transactions still awaiting payment, with
+ * deadlines counted from when they were created.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PendingPayments {
+
+    /** Statuses of transactions whose charge request is unanswered. */
+    public static final List<String> AWAITING_STATUSES = List.of("PENDING_PAYMENT", "OFFLINE_PENDING_PAYMENT");
+
+    private final TollTransactionRepository txRepo;
+    private final JournalFlusher journalFlusher;
+    private final TagLanes lanes;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payment.timeout.sla-ms:30000}")
+    private long slaMs;
+
+    @Value("${payment.timeout.tick-ms:100}")
+    private long tickMs;
+
+    /**
+     * What settling a charge needs; {@code status} is the transaction's status while it waits, and
+     * {@code balanceHeld} whether its toll was held on the balance (null for transactions recorded before
+     * that was tracked).
+     */
+    public record Pending(UUID eventId, String tagId, String plazaId, String laneId, double tollAmount,
+                          double previousBalance, String status, Boolean balanceHeld, int attempt) {
+
+        public static Pending of(TollTransaction tx) {
+            return new Pending(tx.getEventId(), tx.getTagId(), tx.getPlazaId(), tx.getLaneId(), tx.getTollAmount(),
+                    tx.getPreviousBalance(), tx.getStatus(), tx.getBalanceHeld(), 0);
+        }
+
+        /** The same charge, sent once more. */
+        public Pending retried() {
+            return new Pending(eventId, tagId, plazaId, laneId, tollAmount, previousBalance, status, balanceHeld,
+                    attempt + 1);
+        }
+    }
+
+    private record Tracked(Pending pending, TimingWheel.Timeout<Pending> timeout) {
+    }
+
+    private final Map<UUID, Tracked> inFlight = new ConcurrentHashMap<>();
+    private final TimingWheel<Pending> wheel = new TimingWheel<>();
+    private volatile Consumer<Pending> expiryHandler = pending -> { };
+    private ScheduledExecutorService ticker;
+    private long startNanos;
+
+    @PostConstruct
+    public void start() {
+        startNanos = System.nanoTime();
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "payment-timeouts"));
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("verify.payments.pending", inFlight, Map::size).register(meterRegistry);
+    }
+
+    public static boolean isAwaitingPayment(String status) {
+        return AWAITING_STATUSES.contains(status);
+    }
+
+    /** Sets what runs, on the tag's lane, for a request that went unanswered past the SLA. */
+    public void onExpiry(Consumer<Pending> handler) {
+        this.expiryHandler = handler;
+    }
+
+    /** Tracks those of {@code txs} that await payment; call before their charge requests are published. */
+    public void trackAll(List<TollTransaction> txs) {
+        for (TollTransaction tx : txs) {
+            if (isAwaitingPayment(tx.getStatus())) {
+                track(Pending.of(tx), slaMs);
+            }
+        }
+    }
+
+    /** Tracks a charge whose request was just (re-)sent, with a full SLA. */
+    public void track(Pending pending) {
+        track(pending, slaMs);
+    }
+
+    /** Stops tracking a charge and returns it; null if it isn't tracked, e.g. because it timed out. */
+    public Pending complete(UUID eventId) {
+        Tracked tracked = inFlight.remove(eventId);
+        if (tracked == null) return null;
+        tracked.timeout().cancel();
+        return tracked.pending();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        journalFlusher.flush(); // journaled transactions left from before the restart
+        List<TollTransaction> awaiting = txRepo.findByStatusIn(AWAITING_STATUSES);
+        Instant now = Instant.now();
+        int added = 0;
+        for (TollTransaction tx : awaiting) {
+            if (inFlight.containsKey(tx.getEventId())) continue; // already tracked since startup
+            Instant created = tx.getCreatedAt() != null ? tx.getCreatedAt() : now;
+            track(Pending.of(tx), slaMs - Duration.between(created, now).toMillis());
+            added++;
+        }
+        log.info("Rebuilt pending payments: {} transaction(s) awaiting a charge response", added);
+    }
+
+    private void track(Pending pending, long delayMs) {
+        long ticks = (Math.max(0, delayMs) + tickMs - 1) / tickMs;
+        Tracked tracked = new Tracked(pending, wheel.schedule(pending, ticks));
+        Tracked previous = inFlight.put(pending.eventId(), tracked);
+        if (previous != null) previous.timeout().cancel();
+    }
+
+    private void tick() {
+        try {
+            long now = (System.nanoTime() - startNanos) / TimeUnit.MILLISECONDS.toNanos(tickMs);
+            for (Pending pending : wheel.advanceTo(now)) {
+                Tracked tracked = inFlight.get(pending.eventId());
+                // answered meanwhile, or tracked again with a new deadline
+                if (tracked == null || tracked.pending() != pending) continue;
+                if (!inFlight.remove(pending.eventId(), tracked)) continue;
+                meterRegistry.counter("verify.payments.expired").increment();
+                lanes.execute(pending.tagId(), () -> expiryHandler.accept(pending));
+            }
+        } catch (Exception e) {
+            log.warn("Payment timeout tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+}
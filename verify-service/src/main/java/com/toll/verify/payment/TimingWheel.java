@@ -0,0 +1,113 @@
+package com.toll.verify.payment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, where one slot of a level spans a whole turn of
+ * the level below. Scheduling and cancelling cost the same whether the deadline is a tick or hours
+ * away; a timeout waiting in an upper level is moved down when its slot comes round, and expires
+ * within one tick of its deadline. Deadlines past the top level's current turn are parked in its next
+ * slot and placed again each time it comes round.
+ *
+ * Time is counted in ticks from the wheel's start and only moves when {@link #advanceTo} is called.
+ * Thread-safe.
+ */
+final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    /** A scheduled item; cancelling it keeps it from expiring. */
+    static final class Timeout<T> {
+        private final T item;
+        private final long deadline;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        T item() {
+            return item;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final List<List<Deque<Timeout<T>>>> levels = new ArrayList<>(LEVELS);
+    private long currentTick;
+
+    TimingWheel() {
+        for (int l = 0; l < LEVELS; l++) {
+            List<Deque<Timeout<T>>> slots = new ArrayList<>(SLOTS);
+            for (int s = 0; s < SLOTS; s++) {
+                slots.add(new ArrayDeque<>());
+            }
+            levels.add(slots);
+        }
+    }
+
+    /** Schedules {@code item} to expire {@code delayTicks} from now; past deadlines expire on the next tick. */
+    synchronized Timeout<T> schedule(T item, long delayTicks) {
+        Timeout<T> timeout = new Timeout<>(item, currentTick + Math.max(1, delayTicks));
+        place(timeout);
+        return timeout;
+    }
+
+    /** Moves time forward to {@code tick} and returns what expired on the way, in deadline order. */
+    synchronized List<T> advanceTo(long tick) {
+        List<T> expired = new ArrayList<>();
+        while (currentTick < tick) {
+            currentTick++;
+            for (int l = LEVELS - 1; l > 0; l--) {
+                if ((currentTick & ((1L << (SLOT_BITS * l)) - 1)) == 0) {
+                    cascade(l);
+                }
+            }
+            Deque<Timeout<T>> slot = levels.get(0).get((int) (currentTick & (SLOTS - 1)));
+            Timeout<T> timeout;
+            while ((timeout = slot.poll()) != null) {
+                if (timeout.cancelled) continue;
+                if (timeout.deadline <= currentTick) expired.add(timeout.item);
+                else place(timeout);
+            }
+        }
+        return expired;
+    }
+
+    // Caller holds the lock
+    private void cascade(int level) {
+        Deque<Timeout<T>> slot = levels.get(level).get(slotIndex(currentTick, level));
+        List<Timeout<T>> moving = new ArrayList<>(slot);
+        slot.clear();
+        for (Timeout<T> timeout : moving) {
+            if (!timeout.cancelled) place(timeout);
+        }
+    }
+
+    // Caller holds the lock; the lowest level whose current turn contains the deadline
+    private void place(Timeout<T> timeout) {
+        long deadline = timeout.deadline;
+        for (int l = 0; l < LEVELS; l++) {
+            int shift = SLOT_BITS * (l + 1);
+            if ((deadline >>> shift) == (currentTick >>> shift)) {
+                levels.get(l).get(slotIndex(deadline, l)).add(timeout);
+                return;
+            }
+        }
+        // Beyond the top level's turn: park it in the next top slot, to be placed again from there
+        int top = LEVELS - 1;
+        levels.get(top).get((slotIndex(currentTick, top) + 1) & (SLOTS - 1)).add(timeout);
+    }
+
+    private static int slotIndex(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+}
@@ -2,11 +2,29 @@ package com.toll.verify.repository;
 
 import com.toll.verify.entity.TollTransaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface TollTransactionRepository extends JpaRepository<TollTransaction, UUID> {
-    Optional<TollTransaction> findByEventId(String eventId);
+    Optional<TollTransaction> findByEventId(UUID eventId);
+
+    /** Which of the given events already have a transaction; one query for a whole batch. */
+    @Query("select t.eventId from TollTransaction t where t.eventId in :eventIds")
+    Set<UUID> findExistingEventIds(@Param("eventIds") Collection<UUID> eventIds);
+
+    List<TollTransaction> findByStatusIn(Collection<String> statuses);
+
+    /** Records the outcome of a charge without loading the transaction; returns the rows updated. */
+    @Modifying
+    @Query("update TollTransaction t set t.status = :status, t.newBalance = :newBalance where t.eventId = :eventId")
+    int settle(@Param("eventId") UUID eventId, @Param("status") String status, @Param("newBalance") Double newBalance);
 }
 
 
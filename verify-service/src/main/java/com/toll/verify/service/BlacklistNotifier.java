@@ -0,0 +1,39 @@
+package com.toll.verify.service;
+
+import com.toll.common.model.BlacklistChange;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Announces blacklist writes on {@link BlacklistChange#CHANNEL} so edge near-caches pick them up
+ * immediately. Publishing is best effort: edges also resync periodically.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlacklistNotifier {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public void added(String tagId, String reason) {
+        publish(BlacklistChange.added(tagId, reason));
+    }
+
+    public void removed(String tagId) {
+        publish(BlacklistChange.removed(tagId));
+    }
+
+    public void reset() {
+        publish(BlacklistChange.reset());
+    }
+
+    private void publish(BlacklistChange change) {
+        try {
+            stringRedisTemplate.convertAndSend(BlacklistChange.CHANNEL, change.encode());
+        } catch (Exception e) {
+            log.warn("Failed to publish blacklist change {}: {}", change, e.getMessage());
+        }
+    }
+}
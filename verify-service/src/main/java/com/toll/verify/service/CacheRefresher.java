@@ -1,47 +1,193 @@
 package com.toll.verify.service;
 
 import com.toll.common.model.TagInfo;
+import com.toll.common.store.TagAccountStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Refresh-ahead for the tag cache, so hot tags are renewed from the vendor before they expire and the
+ * vehicle path never has to wait on a vendor miss.
+ *
+ * Each run walks {@code TAG:*} with SCAN in pages of {@code refresh.scan-count}, so Redis is never
+ * blocked for the whole keyspace, and reads each page's remaining TTL and idle time in one pipelined
+ * round trip (neither touches the key). Candidates are keys due to expire within
+ * {@code refresh.ahead-seconds}, or with no TTL at all, that were read within
+ * {@code refresh.active-idle-seconds}; tags nobody reads are left to expire. Candidates are refreshed
+ * soonest-expiring first, {@code refresh.batch-size} x {@code refresh.parallelism} vendor lookups at a
+ * time, and written back in one pipeline per window with the cache TTL renewed. Only vehicle data is
+ * written back; balances are owned by the hold and charge scripts of {@link TagAccountStore}.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CacheRefresher {
 
+    private static final String TAG_PREFIX = TagAccountStore.KEY_PREFIX;
+
     private final RedisTemplate<String, TagInfo> redisTemplate;
+    private final TagAccountStore tagAccountStore;
     private final TagVendorClient vendorClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${refresh.enabled:false}")
+    private boolean enabled;
+
+    @Value("${refresh.scan-count:1000}")
+    private int scanCount;
+
+    @Value("${refresh.ahead-seconds:90}")
+    private long aheadSeconds;
+
+    @Value("${refresh.active-idle-seconds:600}") // 0 = refresh regardless of access
+    private long activeIdleSeconds;
+
+    @Value("${refresh.batch-size:100}")
+    private int batchSize;
+
+    @Value("${refresh.parallelism:4}")
+    private int parallelism;
+
+    @Value("${cache.ttl-minutes:5}")
+    private long cacheTtlMinutes;
+
+    private volatile boolean idleTimeSupported = true;
 
-    /**
-     * Scheduled job to refresh active tag cache every 5 minutes.
-     * It scans Redis for keys with prefix "TAG:" and refreshes each entry from vendor.
-     */
-   // @Scheduled(fixedDelayString = "${cache.refresh-interval-ms:300000}") // default: 5 minutes
+    private record Candidate(String tagId, long ttlSeconds, long idleSeconds) {
+    }
+
+    @Scheduled(fixedDelayString = "${refresh.interval-ms:30000}")
     public void refreshActiveTags() {
-        Set<String> keys = redisTemplate.keys("TAG:*");
-        if (keys == null || keys.isEmpty()) {
-            return;
+        if (!enabled) return;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Candidate> candidates = new ArrayList<>();
+        long scanned = 0;
+        try {
+            List<String> page = new ArrayList<>(scanCount);
+            try (Cursor<String> cursor = redisTemplate.scan(
+                    ScanOptions.scanOptions().match(TAG_PREFIX + "*").count(scanCount).build())) {
+                while (cursor.hasNext()) {
+                    page.add(cursor.next());
+                    if (page.size() == scanCount) {
+                        scanned += page.size();
+                        select(page, candidates);
+                        page.clear();
+                    }
+                }
+            }
+            scanned += page.size();
+            select(page, candidates);
+        } catch (Exception e) {
+            log.warn("Tag cache scan failed after {} keys: {}", scanned, e.getMessage());
         }
 
-        log.info("Refreshing {} cached tags from vendor...", keys.size());
-        for (String key : keys) {
+        candidates.sort(Comparator.comparingLong(Candidate::ttlSeconds).thenComparingLong(Candidate::idleSeconds));
+        int refreshed = 0;
+        int window = Math.max(1, batchSize * parallelism);
+        for (int i = 0; i < candidates.size(); i += window) {
+            refreshed += refresh(candidates.subList(i, Math.min(candidates.size(), i + window)));
+        }
+
+        meterRegistry.counter("verify.refresh.scanned").increment(scanned);
+        meterRegistry.counter("verify.refresh.candidates").increment(candidates.size());
+        meterRegistry.counter("verify.refresh.refreshed").increment(refreshed);
+        sample.stop(meterRegistry.timer("verify.refresh.cycle"));
+        if (!candidates.isEmpty()) {
+            log.info("Refresh-ahead: scanned {} tags, refreshed {} of {} due", scanned, refreshed, candidates.size());
+        }
+    }
+
+    // Adds the page's keys that are due for refresh
+    private void select(List<String> keys, List<Candidate> candidates) {
+        if (keys.isEmpty()) return;
+        boolean withIdle = activeIdleSeconds > 0 && idleTimeSupported;
+        List<Object> replies;
+        try {
+            replies = pipelineTtlAndIdle(keys, withIdle);
+        } catch (Exception e) {
+            if (!withIdle) throw e;
+            // OBJECT IDLETIME is refused under an LFU eviction policy; fall back to TTL only
+            log.warn("Redis idle times unavailable, refreshing by TTL only: {}", e.getMessage());
+            idleTimeSupported = false;
+            withIdle = false;
+            replies = pipelineTtlAndIdle(keys, false);
+        }
+
+        int step = withIdle ? 2 : 1;
+        for (int i = 0; i < keys.size(); i++) {
+            Long ttl = (Long) replies.get(i * step);
+            if (ttl == null || ttl == -2) continue; // gone since the scan
+            long idle = 0;
+            if (withIdle) {
+                Object reply = replies.get(i * step + 1);
+                idle = reply instanceof Duration d ? d.toSeconds() : reply instanceof Long l ? l : 0;
+                if (idle > activeIdleSeconds) continue;
+            }
+            if (ttl == -1 || ttl <= aheadSeconds) {
+                candidates.add(new Candidate(keys.get(i).substring(TAG_PREFIX.length()), ttl, idle));
+            }
+        }
+    }
+
+    private List<Object> pipelineTtlAndIdle(List<String> keys, boolean withIdle) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) conn -> {
+            for (String key : keys) {
+                byte[] raw = key.getBytes(StandardCharsets.UTF_8);
+                conn.keyCommands().ttl(raw);
+                if (withIdle) conn.keyCommands().idletime(raw);
+            }
+            return null;
+        });
+    }
+
+    // Fetches one window of candidates from the vendor in parallel and writes them back in one pipeline
+    private int refresh(List<Candidate> window) {
+        List<CompletableFuture<TagInfo>> lookups = new ArrayList<>(window.size());
+        for (Candidate c : window) {
+            lookups.add(vendorClient.fetchTagAsync(c.tagId()));
+        }
+
+        List<TagInfo> fresh = new ArrayList<>(window.size());
+        int failed = 0;
+        for (CompletableFuture<TagInfo> lookup : lookups) {
             try {
-                String tagId = key.replace("TAG:", "");
-                TagInfo updated = vendorClient.fetchTag(tagId);
-                if (updated != null) {
-                    redisTemplate.opsForValue().set(key, updated);
-                    log.debug("Refreshed tag {} cache from vendor", tagId);
-                }
+                TagInfo tag = lookup.get(30, TimeUnit.SECONDS);
+                if (tag != null) fresh.add(tag);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             } catch (Exception e) {
-                log.warn("Failed to refresh tag cache for key {}: {}", key, e.getMessage());
+                failed++;
             }
         }
-        log.info("Cache refresh cycle complete.");
+        if (failed > 0) {
+            meterRegistry.counter("verify.refresh.failed").increment(failed);
+            log.warn("Refresh-ahead: {} of {} vendor lookups failed", failed, window.size());
+        }
+        if (fresh.isEmpty()) return 0;
+
+        try {
+            return tagAccountStore.refreshAll(fresh, Duration.ofMinutes(cacheTtlMinutes));
+        } catch (Exception e) {
+            log.warn("Refresh-ahead: writing {} tags back failed: {}", fresh.size(), e.getMessage());
+            return 0;
+        }
     }
 }
-
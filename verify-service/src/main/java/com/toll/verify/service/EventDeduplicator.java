@@ -0,0 +1,152 @@
+package com.toll.verify.service;
+
+import com.toll.verify.journal.TransactionJournal;
+import com.toll.verify.repository.TollTransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Finds tag events that were already processed without querying Postgres for every event.
+ *
+ * Layers, cheapest first:
+ * <ol>
+ *   <li>a bounded set of the eventIds this instance recently committed;</li>
+ *   <li>{@code SET EVT:<eventId> NX EX} in Redis, pipelined for a batch, which claims an id for whichever
+ *       instance gets there first;</li>
+ *   <li>the {@code event_id} primary key. Only ids Redis has seen before are looked up, because a claim
+ *       can outlive a rolled-back or crashed transaction; an insert that still collides is caught by
+ *       {@link #isDuplicate(DataIntegrityViolationException)}. In write-behind mode ids still waiting in
+ *       the {@link TransactionJournal} count as stored.</li>
+ * </ol>
+ * Each layer reports {@code verify.dedup} with {@code layer} and {@code outcome=hit|miss} tags, so
+ * hit / (hit + miss) is that layer's duplicate rate. If Redis is down every id goes to the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventDeduplicator {
+
+    private static final String KEY_PREFIX = "EVT:";
+    private static final byte[] CLAIMED = "1".getBytes(StandardCharsets.UTF_8);
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TollTransactionRepository txRepo;
+    private final TransactionJournal journal;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${verify.dedup.local-capacity:100000}")
+    private int localCapacity;
+
+    @Value("${verify.dedup.ttl-hours:24}")
+    private long ttlHours;
+
+    private Set<UUID> recent;
+
+    @PostConstruct
+    void init() {
+        recent = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<UUID, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > localCapacity;
+            }
+        }));
+    }
+
+    /** The given eventIds that were already processed. */
+    public Set<UUID> findDuplicates(Collection<UUID> eventIds) {
+        Set<UUID> duplicates = new HashSet<>();
+        List<UUID> unseen = new ArrayList<>(eventIds.size());
+        for (UUID id : eventIds) {
+            if (recent.contains(id)) duplicates.add(id);
+            else unseen.add(id);
+        }
+        count("local", duplicates.size(), unseen.size());
+        if (unseen.isEmpty()) return duplicates;
+
+        List<UUID> suspects = claim(unseen);
+        if (suspects.isEmpty()) return duplicates;
+
+        if (journal.isEnabled()) {
+            // written behind: may still be in the journal rather than in Postgres
+            List<UUID> journaled = suspects.stream().filter(journal::isUnflushed).toList();
+            suspects = suspects.stream().filter(id -> !journal.isUnflushed(id)).toList();
+            duplicates.addAll(journaled);
+            count("journal", journaled.size(), suspects.size());
+            if (suspects.isEmpty()) return duplicates;
+        }
+
+        Set<UUID> stored = txRepo.findExistingEventIds(suspects);
+        count("db", stored.size(), suspects.size() - stored.size());
+        duplicates.addAll(stored);
+        return duplicates;
+    }
+
+    /** Records eventIds whose transactions have committed. */
+    public void remember(Collection<UUID> eventIds) {
+        recent.addAll(eventIds);
+    }
+
+    /** True if the insert failed because the eventId is already stored. */
+    public boolean isDuplicate(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                count("constraint", 1, 0);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ids Redis had already seen, or all of them if Redis can't be reached
+    private List<UUID> claim(List<UUID> ids) {
+        List<Object> replies;
+        try {
+            Expiration ttl = Expiration.seconds(ttlHours * 3600);
+            replies = stringRedisTemplate.executePipelined((RedisCallback<Object>) conn -> {
+                for (UUID id : ids) {
+                    conn.stringCommands().set((KEY_PREFIX + id).getBytes(StandardCharsets.UTF_8), CLAIMED, ttl,
+                            SetOption.ifAbsent());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Redis dedup unavailable, checking {} events in the database: {}", ids.size(), e.getMessage());
+            meterRegistry.counter("verify.dedup", "layer", "redis", "outcome", "error").increment(ids.size());
+            return ids;
+        }
+
+        List<UUID> seen = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (!Boolean.TRUE.equals(replies.get(i))) seen.add(ids.get(i));
+        }
+        count("redis", seen.size(), ids.size() - seen.size());
+        return seen;
+    }
+
+    private void count(String layer, int hits, int misses) {
+        if (hits > 0) meterRegistry.counter("verify.dedup", "layer", layer, "outcome", "hit").increment(hits);
+        if (misses > 0) meterRegistry.counter("verify.dedup", "layer", layer, "outcome", "miss").increment(misses);
+    }
+}
@@ -1,16 +1,239 @@
 package com.toll.verify.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.toll.common.model.CurrentTrip;
 import com.toll.common.model.TagInfo;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Looks tag accounts up at the vendor.
+ *
+ * Concurrent lookups of the same tag share one request (single-flight), and distinct tags requested
+ * within {@code vendor.batch.linger-ms} of each other go out together as one
+ * {@code POST <service-url>/batch}, up to {@code vendor.batch.max-size} tags. Requests are sent with the
+ * non-blocking JDK {@link HttpClient} and pass through the {@code vendorService} circuit breaker and
+ * bulkhead; while either rejects a call, lookups fail fast instead of queueing on the vendor.
+ *
+ * A blank {@code vendor.service-url} keeps the old in-process simulated vendor.
+ */
+@Slf4j
 @Component
+@RequiredArgsConstructor
 public class TagVendorClient {
-    // Mock: In real implementation call actual vendor API
+
+    private static final String VENDOR = "vendorService";
+
+    private final ObjectMapper objectMapper;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${vendor.service-url:}")
+    private String serviceUrl;
+
+    @Value("${vendor.timeout-ms:2000}")
+    private long timeoutMs;
+
+    @Value("${vendor.batch.max-size:100}")
+    private int maxBatchSize;
+
+    @Value("${vendor.batch.linger-ms:5}")
+    private long lingerMs;
+
+    private final Map<String, CompletableFuture<TagInfo>> inFlight = new ConcurrentHashMap<>();
+    private final List<String> pending = new ArrayList<>(); // guarded by itself
+
+    private HttpClient http;
+    private ScheduledExecutorService linger;
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void start() {
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(timeoutMs))
+                .build();
+        linger = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "vendor-batcher"));
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker(VENDOR);
+        bulkhead = bulkheadRegistry.bulkhead(VENDOR);
+        batchSizes = meterRegistry.summary("verify.vendor.batch.size");
+    }
+
+    /** The tag's account, or null if the vendor doesn't know it; throws if the vendor can't be reached. */
     public TagInfo fetchTag(String tagId) {
-        // simulated
+        return fetchTags(List.of(tagId)).get(tagId);
+    }
+
+    /** Accounts of the given tags that the vendor knows; throws if the vendor can't be reached. */
+    public Map<String, TagInfo> fetchTags(Collection<String> tagIds) {
+        Map<String, CompletableFuture<TagInfo>> futures = new HashMap<>();
+        for (String tagId : tagIds) {
+            futures.put(tagId, fetchTagAsync(tagId));
+        }
+        Map<String, TagInfo> tags = new HashMap<>();
+        try {
+            for (Map.Entry<String, CompletableFuture<TagInfo>> f : futures.entrySet()) {
+                TagInfo tag = f.getValue().get(timeoutMs + lingerMs, TimeUnit.MILLISECONDS);
+                if (tag != null) tags.put(f.getKey(), tag);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for vendor", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Vendor lookup failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Vendor lookup timed out", e);
+        }
+        return tags;
+    }
+
+    /** Completes with the tag's account, or null if the vendor doesn't know it. */
+    public CompletableFuture<TagInfo> fetchTagAsync(String tagId) {
+        if (serviceUrl.isBlank()) {
+            return CompletableFuture.completedFuture(simulated(tagId));
+        }
+        CompletableFuture<TagInfo> created = new CompletableFuture<>();
+        CompletableFuture<TagInfo> shared = inFlight.putIfAbsent(tagId, created);
+        if (shared != null) {
+            meterRegistry.counter("verify.vendor.coalesced").increment();
+            return shared;
+        }
+        created.whenComplete((tag, e) -> inFlight.remove(tagId, created));
+        enqueue(tagId);
+        return created;
+    }
+
+    private void enqueue(String tagId) {
+        List<String> batch = null;
+        synchronized (pending) {
+            pending.add(tagId);
+            if (pending.size() >= maxBatchSize) {
+                batch = drain();
+            } else if (pending.size() == 1) {
+                linger.schedule(this::flushPending, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) send(batch);
+    }
+
+    private void flushPending() {
+        List<String> batch;
+        synchronized (pending) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) send(batch);
+    }
+
+    // Caller holds the pending lock
+    private List<String> drain() {
+        List<String> batch = new ArrayList<>(pending);
+        pending.clear();
+        return batch;
+    }
+
+    private void send(List<String> tagIds) {
+        batchSizes.record(tagIds.size());
+        if (!circuitBreaker.tryAcquirePermission()) {
+            fail(tagIds, CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+            return;
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            fail(tagIds, BulkheadFullException.createBulkheadFullException(bulkhead));
+            return;
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(serviceUrl + "/batch"))
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(tagIds)))
+                    .build();
+        } catch (IOException e) {
+            bulkhead.onComplete();
+            circuitBreaker.releasePermission();
+            fail(tagIds, e);
+            return;
+        }
+
+        long start = System.nanoTime();
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            bulkhead.onComplete();
+            long elapsed = System.nanoTime() - start;
+            meterRegistry.timer("verify.vendor.call").record(elapsed, TimeUnit.NANOSECONDS);
+            try {
+                if (error != null) throw error;
+                if (response.statusCode() != 200) {
+                    throw new IOException("Vendor answered " + response.statusCode());
+                }
+                List<TagInfo> tags = objectMapper.readValue(response.body(), new TypeReference<List<TagInfo>>() { });
+                circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                complete(tagIds, tags);
+            } catch (Throwable e) {
+                circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, e);
+                log.warn("Vendor batch of {} tags failed: {}", tagIds.size(), e.getMessage());
+                fail(tagIds, e);
+            }
+        });
+    }
+
+    private void complete(List<String> tagIds, List<TagInfo> tags) {
+        Map<String, TagInfo> byId = new HashMap<>();
+        for (TagInfo tag : tags) {
+            byId.put(tag.getTagId(), tag);
+        }
+        for (String tagId : tagIds) {
+            CompletableFuture<TagInfo> f = inFlight.get(tagId);
+            if (f != null) f.complete(byId.get(tagId));
+        }
+    }
+
+    private void fail(List<String> tagIds, Throwable e) {
+        for (String tagId : tagIds) {
+            CompletableFuture<TagInfo> f = inFlight.get(tagId);
+            if (f != null) f.completeExceptionally(e);
+        }
+    }
+
+    // Stand-in used when no vendor URL is configured
+    private static TagInfo simulated(String tagId) {
         CurrentTrip trip = CurrentTrip.builder()
                 .plazaId(null).laneId(null).timestamp(Instant.now().toString())
                 .tollAmount(0.0).status("IDLE").build();
@@ -19,4 +242,9 @@ public class TagVendorClient {
                 .vehicleType("LIGHT").balance(500.0)
                 .currentTrip(trip).build();
     }
+
+    @PreDestroy
+    public void stop() {
+        linger.shutdownNow();
+    }
 }
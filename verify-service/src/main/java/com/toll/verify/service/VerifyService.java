@@ -1,8 +1,15 @@
 package com.toll.verify.service;
 
+import com.toll.common.id.EventIds;
 import com.toll.common.model.*;
+import com.toll.common.store.TagAccountStore;
+import com.toll.verify.cache.TagCache;
 import com.toll.verify.entity.TollTransaction;
+import com.toll.verify.journal.JournalFlusher;
+import com.toll.verify.journal.TransactionJournal;
+import com.toll.verify.payment.PendingPayments;
 import com.toll.verify.repository.TollTransactionRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,9 +19,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -22,12 +38,22 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class VerifyService {
 
+    private static final String OFFLINE_STATUS_PREFIX = "OFFLINE_";
+    private static final String PAYMENT_TIMEOUT_STATUS = "PAYMENT_TIMEOUT";
+
     private final TollTransactionRepository txRepo;
-    private final RedisTemplate<String, TagInfo> tagRedisTemplate;
+    private final TagAccountStore tagAccountStore;
+    private final TagCache tagCache;
     private final RedisTemplate<String, BlacklistEntry> blacklistRedisTemplate;
     private final TagVendorClient vendorClient;
     private final KafkaTemplate<String, OpenGateCommand> gateKafkaTemplate;
     private final KafkaTemplate<String, TagChargeRequest> chargeKafkaTemplate;
+    private final BlacklistNotifier blacklistNotifier;
+    private final EventDeduplicator deduplicator;
+    private final TransactionJournal journal;
+    private final JournalFlusher journalFlusher;
+    private final PendingPayments pendingPayments;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${payment.topics.request}")
     private String paymentRequestTopic;
@@ -38,31 +64,164 @@ public class VerifyService {
     @Value("${verify.open-gate-on-request:true}")
     private boolean openGateOnRequest;
 
-    @Transactional
+    @Value("${payment.timeout.retries:1}")
+    private int paymentRetries;
+
+    @Value("${payment.timeout.fallback:DENY}") // OPEN or DENY
+    private Decision timeoutFallback;
+
+    @PostConstruct
+    public void init() {
+        pendingPayments.onExpiry(this::paymentTimedOut);
+    }
+
     public void process(TagInfo incoming) {
+        processBatch(List.of(incoming));
+    }
+
+    /**
+     * Processes a poll batch of tag events set-wise: duplicates are found by the {@link EventDeduplicator}
+     * without a database read per event, cached accounts are loaded in one pipelined Redis round trip and
+     * repeats of an eventId within the batch are processed once.
+     *
+     * The new transactions are inserted with one JDBC-batched {@code saveAll} and the resulting charge
+     * requests and gate commands published after the commit; in write-behind mode they are appended to
+     * the {@link TransactionJournal} instead and the messages go out as soon as the append is on disk.
+     * Either way the charges are tracked by {@link PendingPayments} before their requests go out.
+     */
+    public void processBatch(List<TagInfo> batch) {
+
+        Map<UUID, TagInfo> fresh = new LinkedHashMap<>();
+        for (TagInfo incoming : batch) {
+            fresh.putIfAbsent(eventIdOf(incoming), incoming);
+        }
+
+        // Idempotency check; the event_id primary key still rejects anything that slips through
+        for (UUID seen : deduplicator.findDuplicates(fresh.keySet())) {
+            log.info("Skipping duplicate event {}", seen);
+            fresh.remove(seen);
+        }
+        if (fresh.isEmpty()) return;
+
+        Map<String, TagInfo> accounts = loadAccounts(fresh.values());
 
-        String eventId = incoming.getTagId() + "-" + incoming.getCurrentTrip().getTimestamp();
+        Map<UUID, Boolean> reserved = reserve(fresh, accounts);
 
-        // Idempotency check
-        if (txRepo.findByEventId(eventId).isPresent()) {
-            log.info("Skipping duplicate event {}", eventId);
+        List<TollTransaction> txs = new ArrayList<>(fresh.size());
+        List<TagChargeRequest> charges = new ArrayList<>();
+        List<OpenGateCommand> gateCommands = new ArrayList<>();
+        fresh.forEach((eventId, incoming) -> {
+            TagInfo stored = accounts.get(incoming.getTagId());
+            if (stored != null) {
+                txs.add(record(eventId, incoming, stored, reserved.get(eventId), charges, gateCommands));
+            }
+        });
+
+        if (journal.isEnabled()) {
+            journal.append(txs);
+            log.info("Journaled {} transactions BEFORE publishing", txs.size());
+            deduplicator.remember(fresh.keySet());
+            pendingPayments.trackAll(txs);
+            publish(charges, gateCommands);
             return;
         }
 
-        String redisKey = "TAG:" + incoming.getTagId();
-        TagInfo stored = tagRedisTemplate.opsForValue().get(redisKey);
+        transactionTemplate.executeWithoutResult(status -> {
+            txRepo.saveAll(txs);
+            log.info("Persisted {} transactions BEFORE publishing", txs.size());
 
-        if (stored == null) {
-            stored = vendorClient.fetchTag(incoming.getTagId());
-            if (stored == null) return;
-            tagRedisTemplate.opsForValue().set(redisKey, stored, cacheTtlMinutes, TimeUnit.MINUTES);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingPayments.trackAll(txs);
+                    publish(charges, gateCommands);
+                    deduplicator.remember(fresh.keySet());
+                }
+            });
+        });
+    }
+
+    private void publish(List<TagChargeRequest> charges, List<OpenGateCommand> gateCommands) {
+        for (TagChargeRequest chargeReq : charges) {
+            chargeKafkaTemplate.send(paymentRequestTopic, chargeReq.getTagId(), chargeReq);
+            log.info("Published TagChargeRequest: {}", chargeReq);
         }
+        gateCommands.forEach(this::publishGateCommand);
+    }
+
+    // Reads without an eventId come from edges that predate edge-minted ids
+    private static UUID eventIdOf(TagInfo incoming) {
+        return incoming.getCurrentTrip().getEventId() != null
+                ? incoming.getCurrentTrip().getEventId()
+                : EventIds.forLegacyRead(incoming.getTagId(), incoming.getCurrentTrip().getTimestamp());
+    }
+
+    // Cached accounts from the L1, the rest in one Redis round trip; misses are fetched from the vendor
+    // together and cached
+    private Map<String, TagInfo> loadAccounts(Collection<TagInfo> reads) {
+        List<String> tagIds = reads.stream().map(TagInfo::getTagId).distinct().toList();
+        List<TagInfo> cached = tagCache.getAll(tagIds);
+
+        Map<String, TagInfo> accounts = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < tagIds.size(); i++) {
+            if (cached.get(i) != null) accounts.put(tagIds.get(i), cached.get(i));
+            else misses.add(tagIds.get(i));
+        }
+        if (misses.isEmpty()) return accounts;
+
+        Map<String, TagInfo> fetched = vendorClient.fetchTags(misses);
+        for (TagInfo stored : fetched.values()) {
+            tagAccountStore.put(stored, Duration.ofMinutes(cacheTtlMinutes));
+            accounts.put(stored.getTagId(), stored);
+        }
+        return accounts;
+    }
+
+    /**
+     * Holds the toll of every chargeable event on its tag's balance, in one round trip and in batch
+     * order, so two quick trips of one tag can't both be approved against the same funds. The holds are
+     * idempotent per eventId, so a redelivered event gets the answer it got the first time.
+     */
+    private Map<UUID, Boolean> reserve(Map<UUID, TagInfo> fresh, Map<String, TagInfo> accounts) {
+        List<TagAccountStore.Hold> holds = new ArrayList<>();
+        fresh.forEach((eventId, incoming) -> {
+            String tripStatus = incoming.getCurrentTrip().getStatus();
+            boolean chargeable = !"MANUAL_REQUIRED".equalsIgnoreCase(tripStatus)
+                    && !CurrentTrip.OFFLINE_DENY.equals(tripStatus);
+            if (chargeable && accounts.containsKey(incoming.getTagId())) {
+                holds.add(new TagAccountStore.Hold(incoming.getTagId(), eventId,
+                        incoming.getCurrentTrip().getTollAmount()));
+            }
+        });
+        if (holds.isEmpty()) return Map.of();
+
+        List<Boolean> results = tagAccountStore.reserveAll(holds);
+        Map<UUID, Boolean> reserved = new HashMap<>();
+        for (int i = 0; i < holds.size(); i++) {
+            if (results.get(i) != null) reserved.put(holds.get(i).eventId(), results.get(i));
+            else tagCache.invalidate(holds.get(i).tagId()); // expired from Redis while still in the L1
+        }
+        return reserved;
+    }
+
+    /**
+     * Builds the transaction for one new event and queues the messages to publish once it commits.
+     * {@code reserved} is the outcome of the balance hold, or null if none could be placed.
+     */
+    private TollTransaction record(UUID eventId, TagInfo incoming, TagInfo stored, Boolean reserved,
+                                   List<TagChargeRequest> charges, List<OpenGateCommand> gateCommands) {
 
         double toll = incoming.getCurrentTrip().getTollAmount();
         double prevBalance = stored.getBalance();
 
+        // Reads the edge already decided on its own while offline: the lane has acted, so no gate
+        // command is sent for them; they are only recorded and, if the gate opened, charged.
+        String tripStatus = incoming.getCurrentTrip().getStatus();
+        boolean decidedAtEdge = CurrentTrip.OFFLINE_OPEN.equals(tripStatus) || CurrentTrip.OFFLINE_DENY.equals(tripStatus);
+
         // NEW: Manual override flow (Blacklisted, Manual Required, etc.)
-        if ("MANUAL_REQUIRED".equalsIgnoreCase(incoming.getCurrentTrip().getStatus())) {
+        if ("MANUAL_REQUIRED".equalsIgnoreCase(tripStatus) || CurrentTrip.OFFLINE_DENY.equals(tripStatus)) {
             log.warn("Tag {} flagged MANUAL_REQUIRED — sending gate DENY and recording transaction",
                     incoming.getTagId());
 
@@ -81,10 +240,14 @@ public class VerifyService {
                     .createdAt(Instant.now())
                     .build();
 
-            txRepo.save(tx);
+            if (decidedAtEdge) {
+                log.info("Recorded offline DENY for tag {} ({})", incoming.getTagId(),
+                        incoming.getCurrentTrip().getBlacklistedReason());
+                return tx;
+            }
 
             // Send DENY to gate
-            OpenGateCommand gateCmd = OpenGateCommand.builder()
+            gateCommands.add(OpenGateCommand.builder()
                     .eventId(eventId)
                     .tagId(stored.getTagId())
                     .plazaId(incoming.getCurrentTrip().getPlazaId())
@@ -92,17 +255,16 @@ public class VerifyService {
                     .decision(Decision.DENY)
                     .reason("MANUAL_REQUIRED")
                     .timestamp(Instant.now())
-                    .build();
-
-            publishGateCommand(gateCmd);
-
-            log.warn("Gate DENY published due to MANUAL_REQUIRED: {}", gateCmd);
-            return; // stop further automatic processing
+                    .build());
+            return tx; // stop further automatic processing
         }
 
         // Normal flow begins here
-        boolean sufficientFunds = prevBalance >= toll;
+        boolean sufficientFunds = reserved != null ? reserved : prevBalance >= toll;
         String status = sufficientFunds ? "PENDING_PAYMENT" : "INSUFFICIENT_FUNDS";
+        if (decidedAtEdge) {
+            status = OFFLINE_STATUS_PREFIX + status; // tells applyPaymentResult not to drive the gate
+        }
 
         TollTransaction tx = TollTransaction.builder()
                 .eventId(eventId)
@@ -116,63 +278,50 @@ public class VerifyService {
                 .previousBalance(prevBalance)
                 .newBalance(prevBalance) // will update on SUCCESS later
                 .status(status)
+                .balanceHeld(Boolean.TRUE.equals(reserved))
                 .createdAt(Instant.now())
                 .build();
 
-        txRepo.save(tx);
-        log.info("Transaction persisted BEFORE publishing: {}", tx);
-
-        TagInfo finalStored = stored;
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-
-                if (sufficientFunds) {
-
-                    // Publish charge request
-                    TagChargeRequest chargeReq = TagChargeRequest.builder()
-                            .eventId(eventId)
-                            .tagId(finalStored.getTagId())
-                            .amount(toll)
-                            .timestamp(Instant.now().toString())
-                            .build();
-
-                    chargeKafkaTemplate.send(paymentRequestTopic, finalStored.getTagId(), chargeReq);
-                    log.info("Published TagChargeRequest AFTER COMMIT: {}", chargeReq);
-
-                    // Feature toggle: open now or wait for payment confirmation
-                    if (openGateOnRequest) {
-                        OpenGateCommand gateCmd = OpenGateCommand.builder()
-                                .eventId(eventId)
-                                .tagId(finalStored.getTagId())
-                                .plazaId(incoming.getCurrentTrip().getPlazaId())
-                                .laneId(incoming.getCurrentTrip().getLaneId())
-                                .decision(Decision.OPEN)
-                                .reason("PAYMENT_REQUESTED")
-                                .timestamp(Instant.now())
-                                .build();
-
-                        publishGateCommand(gateCmd);
-                        log.info("Gate OPEN published (PAYMENT_REQUESTED mode): {}", gateCmd);
-                    }
-
-                } else {
-                    // Insufficient funds → deny immediately
-                    OpenGateCommand gateCmd = OpenGateCommand.builder()
-                            .eventId(eventId)
-                            .tagId(finalStored.getTagId())
-                            .plazaId(incoming.getCurrentTrip().getPlazaId())
-                            .laneId(incoming.getCurrentTrip().getLaneId())
-                            .decision(Decision.DENY)
-                            .reason("INSUFFICIENT_FUNDS")
-                            .timestamp(Instant.now())
-                            .build();
-
-                    publishGateCommand(gateCmd);
-                    log.warn("Gate DENY published AFTER COMMIT: {}", gateCmd);
-                }
+        if (sufficientFunds) {
+
+            // Publish charge request
+            charges.add(TagChargeRequest.builder()
+                    .eventId(eventId)
+                    .tagId(stored.getTagId())
+                    .amount(toll)
+                    .timestamp(Instant.now().toString())
+                    .build());
+
+            // Feature toggle: open now or wait for payment confirmation
+            if (openGateOnRequest && !decidedAtEdge) {
+                gateCommands.add(OpenGateCommand.builder()
+                        .eventId(eventId)
+                        .tagId(stored.getTagId())
+                        .plazaId(incoming.getCurrentTrip().getPlazaId())
+                        .laneId(incoming.getCurrentTrip().getLaneId())
+                        .decision(Decision.OPEN)
+                        .reason("PAYMENT_REQUESTED")
+                        .timestamp(Instant.now())
+                        .build());
             }
-        });
+
+        } else if (decidedAtEdge) {
+            // The lane already let the vehicle through offline; leave it for collections
+            log.warn("Tag {} passed offline without sufficient funds (balance={}, toll={}), eventId={}",
+                    stored.getTagId(), prevBalance, toll, eventId);
+        } else {
+            // Insufficient funds → deny immediately
+            gateCommands.add(OpenGateCommand.builder()
+                    .eventId(eventId)
+                    .tagId(stored.getTagId())
+                    .plazaId(incoming.getCurrentTrip().getPlazaId())
+                    .laneId(incoming.getCurrentTrip().getLaneId())
+                    .decision(Decision.DENY)
+                    .reason("INSUFFICIENT_FUNDS")
+                    .timestamp(Instant.now())
+                    .build());
+        }
+        return tx;
     }
 
 
@@ -186,50 +335,80 @@ public class VerifyService {
         log.info("GateCommand published to topic=toll.gate.command routingKey={} cmd={}", routingKey, cmd);
     }
 
+    /**
+     * Settles a transaction from its charge response. Charges in flight are settled from
+     * {@link PendingPayments} without reading the transaction; anything else (sent before a restart
+     * rebuilt the index, timed out, or answered twice) is looked up, and only applied while it still
+     * awaits payment or has timed out.
+     */
     @Transactional
     public void applyPaymentResult(TagChargeResponse resp) {
 
         log.info("Applying payment result for eventId={} status={}", resp.getEventId(), resp.getStatus());
 
-        Optional<TollTransaction> optTx = txRepo.findByEventId(resp.getEventId());
-        if (optTx.isEmpty()) {
-            log.warn("No matching transaction found for eventId={}, ignoring", resp.getEventId());
-            return;
+        journalFlusher.awaitStored(resp.getEventId());
+        PendingPayments.Pending pending = pendingPayments.complete(resp.getEventId());
+        if (pending == null) {
+            Optional<TollTransaction> optTx = txRepo.findByEventId(resp.getEventId());
+            if (optTx.isEmpty()) {
+                log.warn("No matching transaction found for eventId={}, ignoring", resp.getEventId());
+                return;
+            }
+            String status = optTx.get().getStatus();
+            if (!PendingPayments.isAwaitingPayment(status) && !isTimedOut(status)) {
+                log.info("Transaction {} already settled ({}), ignoring repeated response", resp.getEventId(), status);
+                return;
+            }
+            pending = PendingPayments.Pending.of(optTx.get());
         }
 
-        TollTransaction tx = optTx.get();
-
-        // Load Redis Tag Data
-        String redisKey = "TAG:" + tx.getTagId();
-        TagInfo stored = tagRedisTemplate.opsForValue().get(redisKey);
-
-        if (stored == null) {
-            log.error("Redis missing TagInfo for {}", tx.getTagId());
-            return;
-        }
+        boolean decidedAtEdge = pending.status().startsWith(OFFLINE_STATUS_PREFIX);
+        // the lane has acted already: offline at the edge, or by the timeout fallback
+        boolean laneActed = decidedAtEdge || isTimedOut(pending.status());
 
         // SUCCESS CASE → Deduct Balance Here
         if (resp.getStatus() == ChargeStatus.SUCCESS) {
 
-            double prevBalance = tx.getPreviousBalance();
-            double toll = tx.getTollAmount();
-            double newBalance = prevBalance - toll;
-
-            // Update Redis
-            stored.setBalance(newBalance);
-            tagRedisTemplate.opsForValue().set(redisKey, stored, cacheTtlMinutes, TimeUnit.MINUTES);
+            double prevBalance = pending.previousBalance();
+            double toll = pending.tollAmount();
+
+            // Take the toll off the balance once: the store remembers the event until the settle below
+            // commits, so a response redelivered after a rollback only reads the balance back. A held toll
+            // comes off its hold; a plain decrement is only for a toll that was never held, or whose hold
+            // the DENY timeout fallback released
+            boolean fromHold = Boolean.TRUE.equals(pending.balanceHeld()) && !isTimedOut(pending.status());
+            Double newBalance = fromHold
+                    ? tagAccountStore.commitHold(pending.tagId(), pending.eventId())
+                    : tagAccountStore.charge(pending.tagId(), pending.eventId(), toll);
+            if (newBalance == null) {
+                log.error("Redis missing {} for {}, eventId={} left unsettled",
+                        fromHold ? "the hold" : "TagInfo", pending.tagId(), pending.eventId());
+                return;
+            }
 
             // Update DB
-            tx.setNewBalance(newBalance);
-            tx.setStatus("SUCCESS");
-            txRepo.save(tx);
+            txRepo.settle(pending.eventId(), "SUCCESS", newBalance);
+            String tagId = pending.tagId();
+            UUID eventId = pending.eventId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tagAccountStore.forgetCharge(tagId, eventId);
+                }
+            });
+
+            if (laneActed) {
+                log.info("Payment SUCCESS for {} → Balance deducted {} → {}",
+                        decidedAtEdge ? "offline pass" : "timed-out charge", prevBalance, newBalance);
+                return;
+            }
 
             // OPEN Gate
             OpenGateCommand gateCmd = OpenGateCommand.builder()
-                    .eventId(tx.getEventId())
-                    .tagId(tx.getTagId())
-                    .plazaId(tx.getPlazaId())
-                    .laneId(tx.getLaneId())
+                    .eventId(pending.eventId())
+                    .tagId(pending.tagId())
+                    .plazaId(pending.plazaId())
+                    .laneId(pending.laneId())
                     .decision(Decision.OPEN)
                     .reason("PAID")
                     .timestamp(Instant.now())
@@ -241,26 +420,30 @@ public class VerifyService {
             return;
         }
 
-        // FAILED CASE → Revert & Blacklist
-        stored.setBalance(tx.getPreviousBalance());
-        tagRedisTemplate.opsForValue().set(redisKey, stored, cacheTtlMinutes, TimeUnit.MINUTES);
-
-        tx.setStatus("FAILED");
-        txRepo.save(tx);
+        // FAILED CASE → Blacklist (nothing was deducted, so only the hold is dropped)
+        tagAccountStore.releaseHold(pending.tagId(), pending.eventId());
+        txRepo.settle(pending.eventId(), "FAILED", pending.previousBalance());
 
         BlacklistEntry entry = BlacklistEntry.builder()
-                .tagId(tx.getTagId())
+                .tagId(pending.tagId())
                 .reason("PAYMENT_FAILED")
                 .timestamp(Instant.now())
                 .build();
 
-        blacklistRedisTemplate.opsForValue().set("BLACKLIST:" + tx.getTagId(), entry, 24, TimeUnit.HOURS);
+        blacklistRedisTemplate.opsForValue().set("BLACKLIST:" + pending.tagId(), entry, 24, TimeUnit.HOURS);
+        blacklistNotifier.added(pending.tagId(), entry.getReason());
+
+        if (laneActed) {
+            log.warn("Payment FAILED for {} → Blacklisted tag {}",
+                    decidedAtEdge ? "offline pass" : "timed-out charge", pending.tagId());
+            return;
+        }
 
         OpenGateCommand denyCmd = OpenGateCommand.builder()
-                .eventId(tx.getEventId())
-                .tagId(tx.getTagId())
-                .plazaId(tx.getPlazaId())
-                .laneId(tx.getLaneId())
+                .eventId(pending.eventId())
+                .tagId(pending.tagId())
+                .plazaId(pending.plazaId())
+                .laneId(pending.laneId())
                 .decision(Decision.DENY)
                 .reason("PAYMENT_FAILED")
                 .timestamp(Instant.now())
@@ -268,12 +451,67 @@ public class VerifyService {
 
         publishGateCommand(denyCmd);
 
-        log.warn("Payment FAILED → Blacklisted tag {} and gate denied.", tx.getTagId());
+        log.warn("Payment FAILED → Blacklisted tag {} and gate denied.", pending.tagId());
+    }
+
+    /**
+     * A charge request went unanswered past the SLA: it is re-sent with the same eventId, so the payment
+     * side can tell it is the same charge, up to {@code payment.timeout.retries} times; then the lane is
+     * settled by {@code payment.timeout.fallback}. OPEN keeps the hold, so a late SUCCESS still comes off
+     * the balance; DENY releases it. A response arriving after that is still applied, without a gate command.
+     * Runs on the tag's lane.
+     */
+    private void paymentTimedOut(PendingPayments.Pending pending) {
+        // Timeouts are rare, so the row is checked: a response may have settled it just before
+        journalFlusher.awaitStored(pending.eventId());
+        Optional<TollTransaction> optTx = txRepo.findByEventId(pending.eventId());
+        if (optTx.isEmpty() || !PendingPayments.isAwaitingPayment(optTx.get().getStatus())) return;
+
+        if (pending.attempt() < paymentRetries) {
+            pendingPayments.track(pending.retried());
+            chargeKafkaTemplate.send(paymentRequestTopic, pending.tagId(), TagChargeRequest.builder()
+                    .eventId(pending.eventId())
+                    .tagId(pending.tagId())
+                    .amount(pending.tollAmount())
+                    .timestamp(Instant.now().toString())
+                    .build());
+            log.warn("No charge response for eventId={} within SLA, request re-sent (retry {} of {})",
+                    pending.eventId(), pending.attempt() + 1, paymentRetries);
+            return;
+        }
+
+        boolean decidedAtEdge = pending.status().startsWith(OFFLINE_STATUS_PREFIX);
+        String status = (decidedAtEdge ? OFFLINE_STATUS_PREFIX : "") + PAYMENT_TIMEOUT_STATUS;
+        transactionTemplate.executeWithoutResult(
+                tx -> txRepo.settle(pending.eventId(), status, pending.previousBalance()));
+        if (timeoutFallback == Decision.DENY) {
+            tagAccountStore.releaseHold(pending.tagId(), pending.eventId());
+        }
+
+        if (decidedAtEdge || openGateOnRequest) {
+            log.warn("Charge for eventId={} timed out → {} (lane already acted)", pending.eventId(), status);
+            return;
+        }
+        publishGateCommand(OpenGateCommand.builder()
+                .eventId(pending.eventId())
+                .tagId(pending.tagId())
+                .plazaId(pending.plazaId())
+                .laneId(pending.laneId())
+                .decision(timeoutFallback)
+                .reason(PAYMENT_TIMEOUT_STATUS)
+                .timestamp(Instant.now())
+                .build());
+        log.warn("Charge for eventId={} timed out → gate {} by policy", pending.eventId(), timeoutFallback);
+    }
+
+    private static boolean isTimedOut(String status) {
+        return status != null && status.endsWith(PAYMENT_TIMEOUT_STATUS);
     }
 
     @Transactional
-    public void handleManualCollection(String eventId, double penaltyMultiplier) {
+    public void handleManualCollection(UUID eventId, double penaltyMultiplier) {
 
+        journalFlusher.awaitStored(eventId);
         TollTransaction tx = txRepo.findByEventId(eventId)
                 .orElseThrow(() -> new IllegalArgumentException("No transaction found for " + eventId));
 
@@ -286,6 +524,7 @@ public class VerifyService {
 
         // Remove from blacklist after manual payment
         blacklistRedisTemplate.delete("BLACKLIST:" + tx.getTagId());
+        blacklistNotifier.removed(tx.getTagId());
 
         log.info("Manual toll processed for {} penalty={} newStatus={}", tx.getTagId(), penaltyAmount, tx.getStatus());
 
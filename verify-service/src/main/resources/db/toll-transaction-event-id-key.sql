@@ -0,0 +1,51 @@
+-- Moves toll_transaction from the generated surrogate key (id uuid, with event_id a unique varchar)
+-- to event_id itself as a native uuid primary key. Hibernate's ddl-auto=update can't change a
+-- primary key or a column type, so this runs first, on every start (spring.sql.init in
+-- application.yml), and does nothing on a new or already migrated database.
+--
+-- To run it by hand instead (e.g. with spring.sql.init.mode=never):
+--   psql -h localhost -U toll -d toll_db -f verify-service/src/main/resources/db/toll-transaction-event-id-key.sql
+--
+-- Old event ids were "<tagId>-<timestamp>" strings. They become the name-based (version 3) UUID of
+-- that string, the same id EventIds.forLegacyRead gives a redelivered read of that era, so
+-- deduplication still matches them. Ids that already are UUIDs are cast as they are.
+DO $$
+DECLARE
+    c record;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = 'toll_transaction'
+                     AND column_name = 'id') THEN
+        RETURN;
+    END IF;
+
+    -- dropping the column drops its primary key constraint with it
+    ALTER TABLE toll_transaction DROP COLUMN id;
+
+    -- the unique constraint on event_id is replaced by the primary key
+    FOR c IN SELECT con.conname
+             FROM pg_constraint con
+             JOIN pg_attribute att ON att.attrelid = con.conrelid AND att.attnum = ANY (con.conkey)
+             WHERE con.conrelid = 'toll_transaction'::regclass AND con.contype = 'u'
+               AND att.attname = 'event_id' AND array_length(con.conkey, 1) = 1
+    LOOP
+        EXECUTE format('ALTER TABLE toll_transaction DROP CONSTRAINT %I', c.conname);
+    END LOOP;
+
+    IF (SELECT data_type FROM information_schema.columns
+        WHERE table_schema = current_schema() AND table_name = 'toll_transaction'
+          AND column_name = 'event_id') <> 'uuid' THEN
+        ALTER TABLE toll_transaction ALTER COLUMN event_id TYPE uuid USING (
+            CASE
+                WHEN event_id ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+                    THEN event_id::uuid
+                -- UUID.nameUUIDFromBytes: MD5 with the version set to 3 and the IETF variant
+                ELSE overlay(overlay(md5(event_id) PLACING '3' FROM 13)
+                             PLACING to_hex((('x' || substr(md5(event_id), 17, 1))::bit(4)::int & 3) | 8)
+                             FROM 17)::uuid
+            END);
+    END IF;
+
+    ALTER TABLE toll_transaction ALTER COLUMN event_id SET NOT NULL;
+    ALTER TABLE toll_transaction ADD PRIMARY KEY (event_id);
+END $$;
@@ -0,0 +1,86 @@
+package com.toll.verify.payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private final TimingWheel<String> wheel = new TimingWheel<>();
+
+    @Test
+    void expiresOnItsDeadlineTick() {
+        wheel.schedule("a", 5);
+
+        assertThat(wheel.advanceTo(4)).isEmpty();
+        assertThat(wheel.advanceTo(5)).containsExactly("a");
+        assertThat(wheel.advanceTo(100)).isEmpty();
+    }
+
+    @Test
+    void expiresPastDeadlinesOnTheNextTick() {
+        wheel.advanceTo(10);
+        wheel.schedule("now", 0);
+        wheel.schedule("late", -3);
+
+        assertThat(wheel.advanceTo(11)).containsExactly("now", "late");
+    }
+
+    @Test
+    void cascadesFromEveryLevelToTheExactTick() {
+        // Delays either side of each level's span, from starts that are and aren't on a slot boundary
+        long[] delays = {63, 64, 65, 100, 64 * 64 - 1, 64 * 64, 64 * 64 + 3, 64 * 64 * 64 + 7, 64L * 64 * 64 * 5 + 11};
+        for (long start : new long[]{0, 37, 64 * 64 - 2}) {
+            TimingWheel<String> started = new TimingWheel<>();
+            started.advanceTo(start);
+            for (long delay : delays) {
+                started.schedule("d" + delay, delay);
+            }
+            for (long delay : delays) {
+                assertThat(started.advanceTo(start + delay - 1)).as("start %d delay %d early", start, delay)
+                        .doesNotContain("d" + delay);
+                assertThat(started.advanceTo(start + delay)).as("start %d delay %d", start, delay)
+                        .containsExactly("d" + delay);
+            }
+        }
+    }
+
+    @Test
+    void placesDeadlinesBeyondTheTopLevelAgain() {
+        long beyond = 64L * 64 * 64 * 64 + 5;
+        wheel.schedule("far", beyond);
+
+        assertThat(wheel.advanceTo(beyond - 1)).isEmpty();
+        assertThat(wheel.advanceTo(beyond)).containsExactly("far");
+    }
+
+    @Test
+    void returnsExpiriesInDeadlineOrder() {
+        List<String> expected = new ArrayList<>();
+        for (long delay : new long[]{5000, 3, 70, 4100, 1}) {
+            wheel.schedule("d" + delay, delay);
+        }
+        for (long delay : new long[]{1, 3, 70, 4100, 5000}) {
+            expected.add("d" + delay);
+        }
+
+        assertThat(wheel.advanceTo(10_000)).isEqualTo(expected);
+    }
+
+    @Test
+    void cancelledTimeoutsNeverExpire() {
+        TimingWheel.Timeout<String> near = wheel.schedule("near", 2);
+        TimingWheel.Timeout<String> far = wheel.schedule("far", 64 * 64 + 9);
+        wheel.schedule("kept", 64 * 64 + 9);
+
+        near.cancel();
+        wheel.advanceTo(100); // "far" is still waiting in an upper level
+        far.cancel();
+
+        assertThat(near.item()).isEqualTo("near");
+        assertThat(wheel.advanceTo(10_000)).containsExactly("kept");
+    }
+}